@@ -4,38 +4,60 @@ import antlr.ANTLRException;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.Util;
+import hudson.XmlFile;
 import hudson.console.AnnotatedLargeText;
 import hudson.matrix.MatrixConfiguration;
 import hudson.model.*;
 import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
 import hudson.security.ACL;
-import hudson.util.SequentialExecutionQueue;
+import hudson.util.HttpResponses;
 import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
 import org.acegisecurity.context.SecurityContext;
 import org.acegisecurity.context.SecurityContextHolder;
 import org.apache.commons.jelly.XMLOutput;
 import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.xtriggerapi.AbstractTriggerByFullContext;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerDescriptor;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerException;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
 import org.jenkinsci.plugins.buildresulttrigger.model.BuildResultTriggerInfo;
-import org.jenkinsci.plugins.buildresulttrigger.model.CheckedResult;
+import org.jenkinsci.plugins.buildresulttrigger.model.JobSelector;
+import org.jenkinsci.plugins.buildresulttrigger.model.ResultPredicate;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import jenkins.model.DependencyDeclarer;
 
@@ -48,6 +70,95 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
 
     private BuildResultTriggerInfo[] jobsInfo = new BuildResultTriggerInfo[0];
 
+    /*
+    * Evaluate the trigger as soon as a monitored job completes instead of waiting for the next poll
+    */
+    private boolean evaluateOnCompletion;
+
+    /*
+    * Spread the polls, skip them while the monitored jobs are idle and poll early after their builds complete
+    */
+    private boolean adaptiveScheduling;
+
+    /*
+    * Also match the builds completed between two polls, not only the last completed one
+    */
+    private boolean catchUpMissedBuilds;
+
+    /*
+    * Combined mode: remember the jobs matched by previous polls until all of them have matched
+    */
+    private boolean rememberPartialMatches;
+
+    /*
+    * Incremented on every item creation, deletion, move or update to invalidate the resolved job caches
+    */
+    private static final AtomicLong ITEMS_GENERATION = new AtomicLong();
+
+    private transient volatile ResolvedJobs resolvedJobs;
+
+    private transient volatile JobTable jobTable;
+
+    private transient BuildResultTriggerStatistics statistics;
+
+    /*
+    * Adaptive scheduling state: start time of the last poll, number of polls skipped since
+    * and time of the last scheduled run
+    */
+    private transient volatile long lastPollStart;
+
+    private transient volatile int skippedPolls;
+
+    private transient volatile long lastScheduledRun;
+
+    /*
+    * A poll of this trigger is submitted and not done yet, and another one has been requested meanwhile
+    */
+    private transient boolean polling;
+
+    private transient boolean pollRequested;
+
+    /*
+    * Set on start when a context persisted by a previous run is to be restored before the first poll
+    */
+    private transient volatile boolean restorePersistedContext;
+
+    /*
+    * Last context written to the context file
+    */
+    private transient BuildResultTriggerContext persistedContext;
+
+    /*
+    * Digest of the settings the contexts depend on, written with them to the context file
+    */
+    private transient volatile String configurationDigest;
+
+    /*
+    * Set once the trigger is stopped, when it must not poll nor write the context anymore
+    */
+    private transient boolean stopped;
+
+    /*
+    * Cause of the build the base class is about to schedule for the current poll, listing the matching builds
+    */
+    private transient volatile BuildResultTriggerCause scheduledCause;
+
+    /**
+     * Maximum delay in seconds added to the polls in adaptive scheduling mode.
+     */
+    static final int ADAPTIVE_JITTER = SystemProperties.getInteger(BuildResultTrigger.class.getName() + ".adaptiveJitter", 30);
+
+    /**
+     * Maximum number of consecutive polls skipped in adaptive scheduling mode while no monitored job completed a build,
+     * reached for the monitored jobs completing builds less often than every that many scheduled polls.
+     */
+    static final int ADAPTIVE_MAX_SKIPPED_POLLS = SystemProperties.getInteger(BuildResultTrigger.class.getName() + ".adaptiveMaxSkippedPolls", 10);
+
+    /**
+     * Maximum number of missed builds of a job examined by a poll in catch-up mode.
+     */
+    static final int CATCH_UP_LIMIT = SystemProperties.getInteger(BuildResultTrigger.class.getName() + ".catchUpLimit", 100);
+
     @DataBoundConstructor
     public BuildResultTrigger(String cronTabSpec, boolean combinedJobs, BuildResultTriggerInfo[] jobsInfo) throws ANTLRException {
         super(cronTabSpec);
@@ -63,6 +174,42 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
         return jobsInfo.clone() ;
     }
 
+    public boolean isEvaluateOnCompletion() {
+        return evaluateOnCompletion;
+    }
+
+    @DataBoundSetter
+    public void setEvaluateOnCompletion(boolean evaluateOnCompletion) {
+        this.evaluateOnCompletion = evaluateOnCompletion;
+    }
+
+    public boolean isAdaptiveScheduling() {
+        return adaptiveScheduling;
+    }
+
+    @DataBoundSetter
+    public void setAdaptiveScheduling(boolean adaptiveScheduling) {
+        this.adaptiveScheduling = adaptiveScheduling;
+    }
+
+    public boolean isCatchUpMissedBuilds() {
+        return catchUpMissedBuilds;
+    }
+
+    @DataBoundSetter
+    public void setCatchUpMissedBuilds(boolean catchUpMissedBuilds) {
+        this.catchUpMissedBuilds = catchUpMissedBuilds;
+    }
+
+    public boolean isRememberPartialMatches() {
+        return rememberPartialMatches;
+    }
+
+    @DataBoundSetter
+    public void setRememberPartialMatches(boolean rememberPartialMatches) {
+        this.rememberPartialMatches = rememberPartialMatches;
+    }
+
     @Override
     public File getLogFile() {
         if (job == null) {
@@ -72,12 +219,177 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
         return new File(job.getRootDir(), "buildResultTrigger-polling.log");
     }
 
+    private static File getContextFile(BuildableItem item) {
+        return new File(item.getRootDir(), "buildResultTrigger-context.xml");
+    }
+
+    @Override
+    public void start(BuildableItem project, boolean newInstance) {
+        if (project != null && newInstance && !isContextFileFor(project)) {
+            // New configuration: the context recorded for the previous one does not apply
+            deleteContextFile(project);
+        }
+        // Decided before the startup context fetch of the base class, see isContextOnStartupFetched()
+        restorePersistedContext = project != null && getContextFile(project).exists();
+        super.start(project, newInstance);
+        BuildResultTriggerIndex.get().register(this);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        BuildResultTriggerIndex.get().unregister(this);
+        // The context file is kept, to be restored by the next trigger of the job if its configuration is the same
+        synchronized (this) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * @return true if the context file of the given job was written by a trigger with the configuration of this one
+     */
+    private boolean isContextFileFor(BuildableItem item) {
+        File file = getContextFile(item);
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            Object persisted = new XmlFile(Jenkins.XSTREAM2, file).read();
+            return persisted instanceof PersistedContext
+                    && ((PersistedContext) persisted).configuration.equals(getConfigurationDigest());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to read the trigger context from " + file, e);
+            return false;
+        }
+    }
+
+    /**
+     * @return a digest of the settings the recorded contexts depend on
+     */
+    private String getConfigurationDigest() {
+        String digest = configurationDigest;
+        if (digest == null) {
+            digest = Util.getDigestOf(Jenkins.XSTREAM2.toXML(jobsInfo) + combinedJobs + rememberPartialMatches);
+            configurationDigest = digest;
+        }
+        return digest;
+    }
+
+    private static void deleteContextFile(BuildableItem item) {
+        File file = getContextFile(item);
+        if (file.exists() && !file.delete()) {
+            LOGGER.log(Level.WARNING, "Failed to delete the trigger context file {0}", file);
+        }
+    }
+
+    public synchronized BuildResultTriggerStatistics getStatistics() {
+        if (statistics == null) {
+            statistics = new BuildResultTriggerStatistics();
+        }
+        return statistics;
+    }
+
+    @Override
+    public void run() {
+        if (!adaptiveScheduling || job == null) {
+            pollNow();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long period = lastScheduledRun > 0 ? now - lastScheduledRun : 0;
+        lastScheduledRun = now;
+
+        // No monitored job completed a build since the last poll: nothing can have changed
+        long lastStart = lastPollStart;
+        List<String> names = new ArrayList<String>(BuildResultTriggerIndex.get().getWatchedNames(this));
+        names.addAll(getJobTable().patternNames);
+        if (lastStart > 0 && skippedPolls < getSkipBudget(names, period)
+                && !UpstreamActivity.get().hasCompletionSince(names, lastStart)) {
+            skippedPolls++;
+            return;
+        }
+        pollLater();
+    }
+
+    /**
+     * @param period the time between two scheduled runs in milliseconds, 0 if unknown
+     * @return the number of consecutive scheduled polls to skip while the monitored jobs are idle: about as many
+     * as fit in the shortest interval between two builds of the monitored jobs, so that the jobs building
+     * rarely are polled less often, and at most {@link #ADAPTIVE_MAX_SKIPPED_POLLS}
+     */
+    private static int getSkipBudget(Collection<String> names, long period) {
+        long interval = UpstreamActivity.get().getShortestMeanInterval(names);
+        if (interval == 0 || period <= 0) {
+            // Builds too rare to be measured yet
+            return ADAPTIVE_MAX_SKIPPED_POLLS;
+        }
+        return (int) Math.max(1, Math.min(ADAPTIVE_MAX_SKIPPED_POLLS, interval / period));
+    }
+
+    /**
+     * Schedules a poll after a delay derived from the job name, so that the jobs sharing a schedule do not all poll at once.
+     */
+    void pollLater() {
+        long delay = ADAPTIVE_JITTER > 0 ? (job.getFullName().hashCode() & Integer.MAX_VALUE) % ADAPTIVE_JITTER : 0;
+        Timer.get().schedule(this::pollNow, delay, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts a poll, or if one is already in progress, a single poll right after it.
+     * The base class opens (and truncates) the polling log before submitting the poll,
+     * so a second poll must not even be started while the first one is running.
+     */
+    void pollNow() {
+        synchronized (this) {
+            if (stopped) {
+                // A delayed or folded poll of a trigger replaced or removed since
+                return;
+            }
+            if (polling) {
+                pollRequested = true;
+                getStatistics().recordCoalescedPoll();
+                return;
+            }
+            polling = true;
+        }
+        lastPollStart = System.currentTimeMillis();
+        skippedPolls = 0;
+        // Lets the descriptor executor serialize the polls of this job and report when this one is done
+        BuildResultTriggerExecutor.enterPoll(job, this::pollDone);
+        try {
+            restoreContext();
+            super.run();
+        } finally {
+            if (!BuildResultTriggerExecutor.exitPoll()) {
+                // Not submitted to the executor, the poll is already over
+                pollDone();
+            }
+        }
+    }
+
+    private void pollDone() {
+        boolean again;
+        synchronized (this) {
+            polling = false;
+            again = pollRequested && !stopped;
+            pollRequested = false;
+        }
+        if (again) {
+            Timer.get().submit(this::pollNow);
+        }
+    }
+
     @Override
     public Collection<? extends Action> getProjectActions() {
         BuildResultTriggerAction action = new InternalBuildResultTriggerAction(getDescriptor().getDisplayName());
         return Collections.singleton(action);
     }
 
+    /**
+     * The dependency graph only links freestyle-like projects. Upstream jobs of any other type, such as Pipelines,
+     * are wired through {@link BuildResultTriggerIndex} and {@link RunListenerImpl} instead.
+     */
     @Override
     public void buildDependencyGraph(AbstractProject ap, DependencyGraph dg) {
         if (job instanceof AbstractProject) {
@@ -89,7 +401,7 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
                             @Override
                             public boolean shouldTriggerBuild(AbstractBuild build, TaskListener listener, List<Action> actions) {
                                 // Do not let BuildTrigger start the downstream build as a result; let BuildResultTrigger decide.
-                                // If BuildResultTrigger were rewritten to not use polling, this method could actually do the status check instead.
+                                // Completions are pushed to the trigger by RunListenerImpl when evaluateOnCompletion is set.
                                 return false;
                             }
                         });
@@ -99,8 +411,21 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
         }
     }
 
+    @ExportedBean
     public final class InternalBuildResultTriggerAction extends BuildResultTriggerAction {
 
+        /*
+        * Number of audit records per page, by default and at most
+        */
+        private static final int AUDIT_PAGE_SIZE = 50;
+
+        private static final int AUDIT_MAX_PAGE_SIZE = 500;
+
+        /*
+        * Size of the log tail rendered by the page
+        */
+        private static final long LOG_TAIL_SIZE = 64 * 1024;
+
         private transient String actionTitle;
 
         public InternalBuildResultTriggerAction(String actionTitle) {
@@ -108,8 +433,8 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
         }
 
         @SuppressWarnings("unused")
-        public AbstractProject<?, ?> getOwner() {
-            return (AbstractProject) job;
+        public Job<?, ?> getOwner() {
+            return (Job<?, ?>) job;
         }
 
         @Override
@@ -132,15 +457,181 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
             return actionTitle;
         }
 
+        public Api getApi() {
+            return new Api(this);
+        }
+
+        @Exported
+        public BuildResultTriggerStatistics getStatistics() {
+            return BuildResultTrigger.this.getStatistics();
+        }
+
+        @SuppressWarnings("unused")
+        public Set<String> getUpstreamJobs() {
+            return filterVisible(TriggerGraph.get().getUpstreams(job.getFullName()));
+        }
+
+        @SuppressWarnings("unused")
+        public Set<String> getDownstreamJobs() {
+            return filterVisible(TriggerGraph.get().getDownstreams(job.getFullName()));
+        }
+
+        /**
+         * @return the cycles involving jobs visible to the current user
+         */
+        @SuppressWarnings("unused")
+        public List<List<String>> getCycles() {
+            List<List<String>> cycles = new ArrayList<List<String>>();
+            for (List<String> cycle : TriggerGraph.get().getReport().getCycles()) {
+                if (filterVisible(cycle).size() == cycle.size()) {
+                    cycles.add(cycle);
+                }
+            }
+            return cycles;
+        }
+
+        /**
+         * @return the fan-out hotspots visible to the current user
+         */
+        @SuppressWarnings("unused")
+        public Map<String, Integer> getHotspots() {
+            Map<String, Integer> hotspots = new LinkedHashMap<String, Integer>();
+            for (Map.Entry<String, Integer> entry : TriggerGraph.get().getReport().getHotspots().entrySet()) {
+                if (Jenkins.get().getItemByFullName(entry.getKey(), Job.class) != null) {
+                    hotspots.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return hotspots;
+        }
+
+        private Set<String> filterVisible(Collection<String> fullNames) {
+            Set<String> visible = new LinkedHashSet<String>();
+            for (String fullName : fullNames) {
+                // Only resolves the jobs the current user can see
+                if (Jenkins.get().getItemByFullName(fullName, Job.class) != null) {
+                    visible.add(fullName);
+                }
+            }
+            return visible;
+        }
+
+        /**
+         * Reads a page of the audit trail, newest first, streaming from the file.
+         *
+         * @param before   the position returned as next by the previous page, null or empty for the newest records
+         * @param upstream the upstream job to return the records of, null or empty for all of them
+         * @param limit    the maximum number of records
+         */
+        public BuildResultTriggerAudit.Page getAuditPage(String before, String upstream, int limit) throws IOException {
+            BuildResultTriggerAudit audit = getAudit();
+            if (audit == null) {
+                return BuildResultTriggerAudit.Page.empty();
+            }
+            String position = Util.fixEmptyAndTrim(before);
+            long start = position != null && StringUtils.isNumeric(position) ? Long.parseLong(position) : -1;
+            return audit.read(start, Math.max(1, Math.min(limit, AUDIT_MAX_PAGE_SIZE)), Util.fixEmptyAndTrim(upstream));
+        }
+
+        @SuppressWarnings("unused")
+        public BuildResultTriggerAudit.Page getAuditPage(String before, String upstream) throws IOException {
+            return getAuditPage(before, upstream, AUDIT_PAGE_SIZE);
+        }
+
+        /**
+         * @return whether the current user can see the given upstream job
+         */
+        @SuppressWarnings("unused")
+        public boolean isVisible(String upstream) {
+            return Jenkins.get().getItemByFullName(upstream, Job.class) != null;
+        }
+
+        /**
+         * Serves a page of the audit trail as JSON.
+         */
+        @SuppressWarnings("unused")
+        public HttpResponse doAuditJson(@QueryParameter String before, @QueryParameter String upstream,
+                                        @QueryParameter String limit) throws IOException {
+            int size = StringUtils.isNumeric(limit) && !limit.isEmpty() ? Integer.parseInt(limit) : AUDIT_PAGE_SIZE;
+            BuildResultTriggerAudit.Page page = getAuditPage(before, upstream, size);
+            JSONArray records = new JSONArray();
+            for (BuildResultTriggerAudit.Record record : page.getRecords()) {
+                if (!isVisible(record.getUpstreamJob())) {
+                    continue;
+                }
+                JSONObject json = new JSONObject();
+                json.put("time", record.getTime());
+                json.put("upstreamJob", record.getUpstreamJob());
+                json.put("buildNumber", record.getBuildNumber());
+                json.put("result", String.valueOf(record.getResult()));
+                json.put("predicate", record.getPredicate());
+                json.put("decision", String.valueOf(record.getDecision()));
+                json.put("durationMillis", record.getDurationMillis());
+                records.add(json);
+            }
+            JSONObject result = new JSONObject();
+            result.put("records", records);
+            result.put("next", page.getNext());
+            return HttpResponses.okJSON(result);
+        }
+
+        /**
+         * Serves the trigger graph around this job, with the cycles and fan-out hotspots, as JSON.
+         */
+        @SuppressWarnings("unused")
+        public HttpResponse doGraphJson() {
+            JSONObject graph = new JSONObject();
+            graph.put("job", job.getFullName());
+            graph.put("upstreams", JSONArray.fromObject(getUpstreamJobs()));
+            graph.put("downstreams", JSONArray.fromObject(getDownstreamJobs()));
+            graph.put("cycles", JSONArray.fromObject(getCycles()));
+            graph.put("hotspots", JSONObject.fromObject(getHotspots()));
+            return HttpResponses.okJSON(graph);
+        }
+
+        @Exported
+        public int getPollingQueueDepth() {
+            return ((BuildResultTriggerDescriptor) BuildResultTrigger.this.getDescriptor()).getPollingQueueDepth();
+        }
+
+        /**
+         * @deprecated loads the whole log in memory, use {@link #getLogText()}
+         */
+        @Deprecated
         @SuppressWarnings("unused")
         public String getLog() throws IOException {
             return Util.loadFile(getLogFile());
         }
 
+        @SuppressWarnings("unused")
+        public boolean isLogEmpty() {
+            return getLogFile().length() == 0;
+        }
+
+        /**
+         * Also serves the log progressively under {@code logText/progressiveText} and {@code logText/progressiveHtml}.
+         */
+        public AnnotatedLargeText<InternalBuildResultTriggerAction> getLogText() {
+            return new AnnotatedLargeText<InternalBuildResultTriggerAction>(getLogFile(), Charset.defaultCharset(), true, this);
+        }
+
+        /**
+         * @return the offset the page starts displaying the log from, so that only its tail is rendered
+         */
+        @SuppressWarnings("unused")
+        public long getLogOffset() {
+            return Math.max(0, getLogFile().length() - LOG_TAIL_SIZE);
+        }
+
         @SuppressWarnings("unused")
         @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED")
         public void writeLogTo(XMLOutput out) throws IOException {
-            new AnnotatedLargeText<InternalBuildResultTriggerAction>(getLogFile(), Charset.defaultCharset(), true, this).writeHtmlTo(0, out.asWriter());
+            writeLogTo(0, out);
+        }
+
+        @SuppressWarnings("unused")
+        @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED")
+        public void writeLogTo(long offset, XMLOutput out) throws IOException {
+            getLogText().writeHtmlTo(offset, out.asWriter());
         }
     }
 
@@ -157,7 +648,12 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
 
     @Override
     protected Action[] getScheduledActions(Node node, XTriggerLog log) {
-        return new Action[0];
+        BuildResultTriggerCause cause = scheduledCause;
+        scheduledCause = null;
+        if (cause == null) {
+            return new Action[0];
+        }
+        return new Action[]{new CauseAction(cause)};
     }
 
     @Override
@@ -167,7 +663,56 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
 
     @Override
     public boolean isContextOnStartupFetched() {
-        return true;
+        // A persisted context is restored on the first poll instead, without touching the upstream build records
+        return !restorePersistedContext;
+    }
+
+    /**
+     * Restores the context persisted by a previous run, or by the previous trigger of the job when the configuration
+     * was saved unchanged, once, so that the builds completed meanwhile are compared against it on the first poll.
+     */
+    private synchronized void restoreContext() {
+        if (!restorePersistedContext || job == null) {
+            return;
+        }
+        restorePersistedContext = false;
+        XmlFile file = new XmlFile(Jenkins.XSTREAM2, getContextFile(job));
+        try {
+            Object context = file.read();
+            if (context instanceof PersistedContext) {
+                PersistedContext persisted = (PersistedContext) context;
+                // Written by the same configuration, unless the configuration file has been edited since
+                context = persisted.configuration.equals(getConfigurationDigest()) ? persisted.context : null;
+            }
+            if (context instanceof BuildResultTriggerContext) {
+                persistedContext = (BuildResultTriggerContext) context;
+                super.setNewContext(persistedContext);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to restore the trigger context from " + file, e);
+        }
+    }
+
+    @Override
+    protected void setNewContext(BuildResultTriggerContext context) {
+        super.setNewContext(context);
+        persistContext(context);
+    }
+
+    /**
+     * Writes the given context to the context file of the job, atomically, when it differs from the last written one.
+     */
+    private synchronized void persistContext(BuildResultTriggerContext context) {
+        if (job == null || stopped || context == null || context.equals(persistedContext)) {
+            return;
+        }
+        XmlFile file = new XmlFile(Jenkins.XSTREAM2, getContextFile(job));
+        try {
+            file.write(new PersistedContext(getConfigurationDigest(), context));
+            persistedContext = context;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to persist the trigger context to " + file, e);
+        }
     }
 
     @Override
@@ -177,35 +722,239 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
 
     @Override
     protected BuildResultTriggerContext getContext(XTriggerLog log) throws XTriggerException {
-        Map<String, Integer> contextResults = new HashMap<String, Integer>();
+        JobTable table = getJobTable();
+        int[] buildNumbers = new int[table.names.length];
+        int[] resultOrdinals = new int[table.names.length];
+        long[] startTimes = new long[table.names.length];
+        long start = System.nanoTime();
+        long cpuStart = BuildResultTriggerStatistics.currentThreadCpuTime();
+        long allocatedStart = BuildResultTriggerStatistics.currentThreadAllocatedBytes();
+        BuildResultTriggerLog pollLog = new BuildResultTriggerLog(log);
         SecurityContext securityContext = ACL.impersonate(ACL.SYSTEM);
         try {
-            for (BuildResultTriggerInfo info : jobsInfo) {
-                for (String jobName : info.getJobNamesAsArray()) {
-                	ItemGroup pjob = null;
-                	
-                    if( this.job != null ) {
-                    	pjob = this.job.getParent() ;
+            for (int i = 0; i < table.names.length; i++) {
+                String jobName = table.names[i];
+                buildNumbers[i] = BuildResultTriggerContext.NO_BUILD;
+                resultOrdinals[i] = BuildResultTriggerContext.NO_RESULT;
+                Job job = resolveJob(jobName);
+
+                if (isValidBuildResultProject(job)) {
+                    // Shared with the other triggers polling in the same time window; the result is captured
+                    // along with the number so that the result check does not have to load the build again
+                    UpstreamSnapshotCache.Snapshot snapshot = UpstreamSnapshotCache.get().getSnapshot(job);
+                    buildNumbers[i] = snapshot.getBuildNumber();
+                    resultOrdinals[i] = snapshot.getResultOrdinal();
+                    startTimes[i] = snapshot.getStartTime();
+                } else {
+                    pollLog.info(String.format("Job %s is not a valid job - ignoring it.", jobName));
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(securityContext);
+            pollLog.flush();
+            getStatistics().recordContextFetch(System.nanoTime() - start, table.names.length,
+                    BuildResultTriggerStatistics.currentThreadCpuTime() - cpuStart,
+                    BuildResultTriggerStatistics.currentThreadAllocatedBytes() - allocatedStart);
+        }
+        return new BuildResultTriggerContext(table.names, buildNumbers, resultOrdinals, startTimes);
+    }
+
+    private JobTable getJobTable() {
+        JobTable table = jobTable;
+        if (table == null || (table.hasPatterns && table.generation != JobNameIndex.get().getGeneration())) {
+            table = new JobTable(jobsInfo, getJobFullName());
+            jobTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Distinct monitored job names, and the position of each configured job name in that table.
+     * Job name patterns are expanded from the {@link JobNameIndex} into absolute names ({@code /full/name}).
+     */
+    /**
+     * Content of the context file: the last context and the configuration it was recorded for.
+     */
+    private static final class PersistedContext {
+
+        private final String configuration;
+
+        private final BuildResultTriggerContext context;
+
+        private PersistedContext(String configuration, BuildResultTriggerContext context) {
+            this.configuration = configuration;
+            this.context = context;
+        }
+    }
+
+    private static final class JobTable {
+
+        private final String[] names;
+
+        /*
+        * Per jobsInfo entry, per monitored job -> index in names
+        */
+        private final int[][] indexes;
+
+        /*
+        * Per index in names -> jobsInfo entries monitoring the job
+        */
+        private final int[][] infos;
+
+        /*
+        * Full names of the jobs selected by patterns
+        */
+        private final List<String> patternNames = new ArrayList<String>();
+
+        private final boolean hasPatterns;
+
+        /*
+        * Statistics of the result checks, to check first the jobs most likely to decide
+        */
+        private final EvaluationOrder order;
+
+        /*
+        * Per index in names -> build number last audited as not evaluated, so that a build left unchecked
+        * by several polls, such as in combined mode while another job has not changed, is audited once
+        */
+        private final int[] skippedBuildNumbers;
+
+        /*
+        * JobNameIndex generation the patterns have been expanded from
+        */
+        private final long generation;
+
+        /**
+         * @param ownName the full name of the job of the trigger, never selected by its patterns, null if unknown
+         */
+        private JobTable(BuildResultTriggerInfo[] jobsInfo, String ownName) {
+            generation = JobNameIndex.get().getGeneration();
+            boolean patterns = false;
+            Map<String, Integer> positions = new LinkedHashMap<String, Integer>();
+            List<Set<Integer>> infosByPosition = new ArrayList<Set<Integer>>();
+            indexes = new int[jobsInfo.length][];
+            for (int i = 0; i < jobsInfo.length; i++) {
+                List<String> jobNames = new ArrayList<String>();
+                for (String jobName : jobsInfo[i].getJobNamesAsArray()) {
+                    if (JobSelector.isPattern(jobName)) {
+                        patterns = true;
+                    } else {
+                        jobNames.add(jobName);
                     }
-                    Job job = Jenkins.get().getItem(jobName, pjob, Job.class);
-
-                    if (isValidBuildResultProject(job)) {
-                        Run lastBuild = job.getLastCompletedBuild();
-                        if (lastBuild != null) {
-                            int buildNumber = lastBuild.getNumber();
-                            if (buildNumber != 0) {
-                                contextResults.put(jobName, buildNumber);
-                            }
+                }
+                for (JobSelector selector : jobsInfo[i].getSelectors()) {
+                    for (String fullName : JobNameIndex.get().getNames()) {
+                        // A job matching its own pattern would trigger itself after every build
+                        if (selector.matches(fullName) && !fullName.equals(ownName)) {
+                            jobNames.add("/" + fullName);
+                            patternNames.add(fullName);
                         }
-                    } else {
-                        log.info(String.format("Job %s is not a valid job - ignoring it.", jobName));
                     }
                 }
+
+                indexes[i] = new int[jobNames.size()];
+                for (int j = 0; j < jobNames.size(); j++) {
+                    String jobName = jobNames.get(j);
+                    Integer position = positions.get(jobName);
+                    if (position == null) {
+                        position = positions.size();
+                        positions.put(jobName.intern(), position);
+                        infosByPosition.add(new LinkedHashSet<Integer>());
+                    }
+                    indexes[i][j] = position;
+                    infosByPosition.get(position).add(i);
+                }
             }
-        } finally {
-            SecurityContextHolder.setContext(securityContext);
+            hasPatterns = patterns;
+            names = positions.keySet().toArray(new String[0]);
+            order = new EvaluationOrder(names.length);
+            skippedBuildNumbers = new int[names.length];
+            infos = new int[names.length][];
+            for (int k = 0; k < names.length; k++) {
+                Set<Integer> positionInfos = infosByPosition.get(k);
+                infos[k] = new int[positionInfos.size()];
+                int n = 0;
+                for (Integer info : positionInfos) {
+                    infos[k][n++] = info;
+                }
+            }
+        }
+
+        /**
+         * @return true if the given build of the job at the given index has not been audited as not evaluated yet
+         */
+        synchronized boolean markSkipped(int index, int buildNumber) {
+            if (index >= skippedBuildNumbers.length || skippedBuildNumbers[index] == buildNumber) {
+                return false;
+            }
+            skippedBuildNumbers[index] = buildNumber;
+            return true;
+        }
+    }
+
+    /**
+     * @return true if one of the job name patterns of this trigger matches the given job full name,
+     * false for the job of the trigger itself
+     */
+    boolean matchesSelectors(String fullName) {
+        if (fullName.equals(getJobFullName())) {
+            return false;
+        }
+        for (BuildResultTriggerInfo info : jobsInfo) {
+            for (JobSelector selector : info.getSelectors()) {
+                if (selector.matches(fullName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    boolean hasSelectors() {
+        for (BuildResultTriggerInfo info : jobsInfo) {
+            if (info.getSelectors().length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves a monitored job from its configured name, reusing the previous resolution
+     * as long as no item has been created, deleted, moved or updated in the meantime.
+     */
+    private Job resolveJob(String jobName) {
+        long generation = ITEMS_GENERATION.get();
+        ResolvedJobs cache = resolvedJobs;
+        if (cache == null || cache.generation != generation) {
+            cache = new ResolvedJobs(generation);
+            resolvedJobs = cache;
+        }
+
+        WeakReference<Job> ref = cache.jobs.get(jobName);
+        Job resolved = ref != null ? ref.get() : null;
+        if (resolved == null) {
+            ItemGroup pjob = null;
+            if (this.job != null) {
+                pjob = this.job.getParent();
+            }
+            resolved = Jenkins.get().getItem(jobName, pjob, Job.class);
+            if (resolved != null) {
+                cache.jobs.put(jobName, new WeakReference<Job>(resolved));
+            }
+        }
+        return resolved;
+    }
+
+    private static final class ResolvedJobs {
+
+        private final long generation;
+
+        private final Map<String, WeakReference<Job>> jobs = new ConcurrentHashMap<String, WeakReference<Job>>();
+
+        private ResolvedJobs(long generation) {
+            this.generation = generation;
         }
-        return new BuildResultTriggerContext(contextResults);
     }
 
     private boolean isValidBuildResultProject(Job item) {
@@ -217,123 +966,525 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
                                       BuildResultTriggerContext newContext,
                                       XTriggerLog log)
             throws XTriggerException {
-        SecurityContext securityContext = ACL.impersonate(ACL.SYSTEM);
+        long start = System.nanoTime();
+        long cpuStart = BuildResultTriggerStatistics.currentThreadCpuTime();
+        long allocatedStart = BuildResultTriggerStatistics.currentThreadAllocatedBytes();
+        boolean fired = false;
+        BuildResultTriggerLog pollLog = new BuildResultTriggerLog(log);
+        List<MatchedBuild> matchedBuilds = new ArrayList<MatchedBuild>();
+        BuildResultTriggerAudit.Poll audit = new BuildResultTriggerAudit.Poll();
+        BuildResultTriggerAudit.Decision decision = BuildResultTriggerAudit.Decision.NOT_TRIGGERED;
+        scheduledCause = null;
         try {
+            fired = checkIfModifiedJobs(oldContext, newContext, pollLog, matchedBuilds, audit);
+            if (!fired) {
+                return false;
+            }
+            List<String> decisionKeys = getDecisionKeys(matchedBuilds);
+            if (isDecisionRecorded(decisionKeys, pollLog)) {
+                fired = false;
+                decision = BuildResultTriggerAudit.Decision.DUPLICATE;
+                return false;
+            }
+            List<String> upstreamBuilds = new ArrayList<String>();
+            for (MatchedBuild matchedBuild : matchedBuilds) {
+                upstreamBuilds.add(matchedBuild.toString());
+            }
+            if (job instanceof Job && BuildResultTriggerBatcher.get().isEnabled()) {
+                // Scheduled with the other decisions of the window rather than by the base class
+                pollLog.decision("The build is scheduled with the other trigger decisions of the current window.");
+                decision = BuildResultTriggerAudit.Decision.BATCHED;
+                BuildResultTriggerBatcher.get().submit((Job<?, ?>) job, getCause(), upstreamBuilds, decisionKeys);
+                return false;
+            }
+            // Scheduled by the base class, along with the cause listing the matching builds
+            scheduledCause = new BuildResultTriggerCause(getCause(), upstreamBuilds);
+            if (decisionKeys != null) {
+                scheduledCause.addDecision(decisionKeys);
+            }
+            decision = BuildResultTriggerAudit.Decision.TRIGGERED;
+            return true;
+        } finally {
+            pollLog.flush();
+            appendAudit(audit, decision, System.nanoTime() - start);
+            getStatistics().recordCheck(System.nanoTime() - start, fired,
+                    BuildResultTriggerStatistics.currentThreadCpuTime() - cpuStart,
+                    BuildResultTriggerStatistics.currentThreadAllocatedBytes() - allocatedStart);
+        }
+    }
 
-            int nbCheckedJobs = 0;
-            int nbModifiedJobs = 0;
-            for (BuildResultTriggerInfo info : jobsInfo) {
-                CheckedResult[] expectedResults = info.getCheckedResults();
-                for (String jobName : info.getJobNamesAsArray()) {
+    private void appendAudit(BuildResultTriggerAudit.Poll audit, BuildResultTriggerAudit.Decision decision, long durationNanos) {
+        BuildResultTriggerAudit trail = getAudit();
+        if (trail == null || !BuildResultTriggerAudit.ENABLED) {
+            return;
+        }
+        try {
+            trail.append(audit, decision, durationNanos);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to append to the trigger audit trail " + trail.getFile(), e);
+        }
+    }
 
-                    nbCheckedJobs++;
+    /**
+     * @return the audit trail of the trigger decisions of the job, null if the trigger is not started
+     */
+    BuildResultTriggerAudit getAudit() {
+        if (job == null) {
+            return null;
+        }
+        return new BuildResultTriggerAudit(new File(job.getRootDir(), "buildResultTrigger-audit.bin"));
+    }
 
-                    boolean modifiedJob = checkIfModifiedJob(jobName, expectedResults, oldContext, newContext, log);
+    /**
+     * Checks the {@link TriggerDecisionStore} for a build already triggered for the given builds, for instance by another
+     * controller. The decision itself is recorded once the build is scheduled, see {@link TriggerDecisionStore.QueueListenerImpl}.
+     *
+     * @param decisionKeys the keys of the matching builds, null if no decision store is enabled
+     * @return true if a build has already been triggered for these builds
+     */
+    private boolean isDecisionRecorded(List<String> decisionKeys, BuildResultTriggerLog log) {
+        TriggerDecisionStore store = TriggerDecisionStore.get();
+        if (store == null || job == null || decisionKeys == null || decisionKeys.isEmpty()) {
+            return false;
+        }
+        try {
+            if (store.isRecorded(job.getFullName(), decisionKeys)) {
+                log.decision("A build has already been triggered for these builds. Not triggering again.");
+                return true;
+            }
+        } catch (IOException e) {
+            // Better trigger twice than miss a build
+            LOGGER.log(Level.WARNING, "Failed to read the trigger decisions of " + job.getFullName(), e);
+        }
+        return false;
+    }
 
-                    //Stop at the first modification on the combination mode
-                    if (!combinedJobs && modifiedJob) {
-                        log.info(String.format("Job %s is modified. Triggering a new build.", jobName));
-                        setNewContext(newContext);
-                        return true;
-                    }
+    /**
+     * @return the keys of the given builds in the {@link TriggerDecisionStore}: full name, number and start time,
+     * which a recreated job or a reset build number cannot repeat, null if no decision store is enabled
+     */
+    private List<String> getDecisionKeys(List<MatchedBuild> matchedBuilds) {
+        if (TriggerDecisionStore.get() == null) {
+            return null;
+        }
+        List<String> keys = new ArrayList<String>();
+        SecurityContext securityContext = ACL.impersonate(ACL.SYSTEM);
+        try {
+            for (MatchedBuild matchedBuild : matchedBuilds) {
+                Job upstream = resolveJob(matchedBuild.jobName);
+                if (upstream == null || matchedBuild.startTime == 0) {
+                    // Captured by a previous version, or the job is gone: the description is the best known
+                    keys.add(matchedBuild.toString());
+                } else {
+                    keys.add(upstream.getFullName() + " #" + matchedBuild.buildNumber + " @" + matchedBuild.startTime);
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(securityContext);
+        }
+        return keys;
+    }
 
-                    //Stop if combined if activated and there isn't a modification
-                    if (combinedJobs && !modifiedJob) {
-                        log.info(String.format("Combination activated. Job %s has not changed. Waiting for next poll.", jobName));
-                        resetOldContext(oldContext);
-                        return false;
-                    }
+    private boolean checkIfModifiedJobs(BuildResultTriggerContext oldContext,
+                                        BuildResultTriggerContext newContext,
+                                        BuildResultTriggerLog log,
+                                        List<MatchedBuild> matchedBuilds,
+                                        BuildResultTriggerAudit.Poll audit) {
+        SecurityContext securityContext = ACL.impersonate(ACL.SYSTEM);
+        BuildResultTriggerContext.Delta delta = null;
+        try {
 
-                    if (modifiedJob) {
-                        nbModifiedJobs++;
+            JobTable table = getJobTable();
+            // Only the jobs whose last completed build moved are evaluated. New jobs are a baseline unless
+            // the combined mode may keep the old context, which would then never record them
+            boolean recorded = !combinedJobs || rememberPartialMatches;
+            delta = newContext.diff(oldContext, recorded);
+            log.decision(String.format("%d of %d monitored jobs have new builds.", delta.getChangedCount(), table.names.length));
+
+            if (!combinedJobs) {
+                // Batched decisions list every matching build, otherwise stop at the first modification
+                boolean collectAll = BuildResultTriggerBatcher.get().isEnabled();
+                int[] candidates = new int[delta.getChangedCount()];
+                int count = 0;
+                for (int index = delta.nextChanged(0); index >= 0; index = delta.nextChanged(index + 1)) {
+                    candidates[count++] = index;
+                }
+                if (!collectAll) {
+                    // The jobs most likely to match cheaply are checked first
+                    table.order.sort(candidates, count, true);
+                }
+                for (int c = 0; c < count; c++) {
+                    int index = candidates[c];
+                    MatchedBuild matchedBuild = findMatchingBuild(table, index, false, oldContext, newContext, log, audit);
+                    if (matchedBuild != null) {
+                        getStatistics().recordMatch();
+                        matchedBuilds.add(matchedBuild);
+                        log.decision(String.format("Job %s is modified. Triggering a new build.", table.names[index]));
+                        if (!collectAll) {
+                            setNewContext(newContext);
+                            return true;
+                        }
                     }
                 }
+                setNewContext(newContext);
+                return !matchedBuilds.isEmpty();
             }
 
-            if (combinedJobs && nbCheckedJobs == nbModifiedJobs) {
-                log.info("Combination activated and all jobs has changed. Triggering a new build.");
-                setNewContext(newContext);
-                return true;
-            } else if (combinedJobs) {
+            if (rememberPartialMatches) {
+                return checkIfAllSatisfied(oldContext, newContext, delta, log, matchedBuilds, audit);
+            }
+
+            //Stop if combined if activated and there isn't a modification
+            int unchanged = delta.nextUnchanged(0);
+            if (unchanged >= 0) {
+                log.decision(String.format("Combination activated. Job %s has not changed. Waiting for next poll.", table.names[unchanged]));
                 resetOldContext(oldContext);
                 return false;
-            } else {
-                setNewContext(newContext);
-                return false;
             }
 
+            // Every job has to match: the jobs most likely to mismatch cheaply are checked first
+            int[] candidates = new int[table.names.length];
+            for (int index = 0; index < candidates.length; index++) {
+                candidates[index] = index;
+            }
+            table.order.sort(candidates, candidates.length, false);
+            for (int index : candidates) {
+                MatchedBuild matchedBuild = findMatchingBuild(table, index, true, oldContext, newContext, log, audit);
+                if (matchedBuild == null) {
+                    log.decision(String.format("Combination activated. Job %s has not changed. Waiting for next poll.", table.names[index]));
+                    resetOldContext(oldContext);
+                    return false;
+                }
+                getStatistics().recordMatch();
+                matchedBuilds.add(matchedBuild);
+            }
+
+            log.decision("Combination activated and all jobs has changed. Triggering a new build.");
+            setNewContext(newContext);
+            return true;
+
         } finally {
+            if (delta != null) {
+                // The new builds left unchecked once the decision was reached are audited too, once
+                JobTable table = getJobTable();
+                for (int index = delta.nextChanged(0); index >= 0; index = delta.nextChanged(index + 1)) {
+                    if (table.markSkipped(index, newContext.getBuildNumber(index))) {
+                        audit.skip(newContext.getJobName(index), newContext.getBuildNumber(index), newContext.getResult(index));
+                    }
+                }
+            }
             SecurityContextHolder.setContext(securityContext);
         }
     }
 
-    private boolean checkIfModifiedJob(String jobName, CheckedResult[] expectedResults, BuildResultTriggerContext oldContext, BuildResultTriggerContext newContext,
-                                       XTriggerLog log) {
-        log.info(String.format("Checking changes for job %s.", jobName));
-
-        final Map<String, Integer> oldContextResults = oldContext.getResults();
-        final Map<String, Integer> newContextResults = newContext.getResults();
+    /**
+     * Combined mode remembering partial matches: marks the changed jobs whose new build matches all their
+     * expected results as satisfied, and fires once every monitored job is satisfied.
+     * The satisfied jobs and their matching builds are kept in the context, so that they survive polls and restarts,
+     * and the matching builds are the ones reported when the build is triggered, whatever the jobs built since.
+     */
+    private boolean checkIfAllSatisfied(BuildResultTriggerContext oldContext,
+                                        BuildResultTriggerContext newContext,
+                                        BuildResultTriggerContext.Delta delta,
+                                        BuildResultTriggerLog log,
+                                        List<MatchedBuild> matchedBuilds,
+                                        BuildResultTriggerAudit.Poll audit) {
+        JobTable table = getJobTable();
+        newContext.carrySatisfied(oldContext);
+        for (int index = delta.nextChanged(0); index >= 0; index = delta.nextChanged(index + 1)) {
+            if (newContext.isSatisfied(index)) {
+                continue;
+            }
+            String jobName = table.names[index];
+            MatchedBuild matchedBuild = findMatchingBuild(table, index, true, oldContext, newContext, log, audit);
+            if (matchedBuild != null) {
+                getStatistics().recordMatch();
+                newContext.satisfy(index, matchedBuild.buildNumber,
+                        matchedBuild.result == null ? BuildResultTriggerContext.NO_RESULT : matchedBuild.result.ordinal,
+                        matchedBuild.startTime);
+                log.decision(String.format("Combination activated. Job %s is satisfied by %s.", jobName, matchedBuild));
+            }
+        }
 
-        if (newContextResults == null || newContextResults.size() == 0) {
-            log.info(String.format("No new builds to check for the job %s", jobName));
+        int missing = newContext.nextUnsatisfied(0);
+        if (missing >= 0) {
+            log.decision(String.format("Combination activated. %d of %d jobs are satisfied, job %s is not. Waiting for next poll.",
+                    newContext.getSatisfiedCount(), table.names.length, table.names[missing]));
+            setNewContext(newContext);
             return false;
         }
 
-        if (newContextResults.size() != oldContextResults.size()) {
-            return isMatchingExpectedResults(jobName, expectedResults, log, newContextResults.get(jobName));
+        log.decision("Combination activated and all jobs are satisfied. Triggering a new build.");
+        for (int i = 0; i < newContext.getJobCount(); i++) {
+            matchedBuilds.add(new MatchedBuild(newContext.getJobName(i), newContext.getSatisfiedBuildNumber(i),
+                    newContext.getSatisfiedResult(i), newContext.getSatisfiedStartTime(i), null));
         }
+        newContext.clearSatisfied();
+        setNewContext(newContext);
+        return true;
+    }
 
-        Integer newLastBuildNumber = newContextResults.get(jobName);
-        if (newLastBuildNumber == null || newLastBuildNumber == 0) {
-            log.info(String.format("The job %s doesn't have any new builds.", jobName));
-            return false;
+    /**
+     * Checks the new build of the job at the given index against the expected results of the job information
+     * monitoring it, and records the outcome for the evaluation order and the audit trail.
+     *
+     * @param allInfos true if the expected results of all the job information have to match (combined mode),
+     *                 false if those of any of them
+     * @return the matching build, null if none
+     */
+    private MatchedBuild findMatchingBuild(JobTable table,
+                                     int index,
+                                     boolean allInfos,
+                                     BuildResultTriggerContext oldContext,
+                                     BuildResultTriggerContext newContext,
+                                     BuildResultTriggerLog log,
+                                     BuildResultTriggerAudit.Poll audit) {
+        long start = System.nanoTime();
+        String jobName = table.names[index];
+        MatchedBuild matchedBuild = null;
+        for (int info : table.infos[index]) {
+            matchedBuild = findMatchingBuild(jobName, index, jobsInfo[info].getPredicates(), oldContext, newContext, log);
+            if ((matchedBuild == null) == allInfos) {
+                break;
+            }
+        }
+        table.order.record(index, matchedBuild != null, System.nanoTime() - start);
+        if (matchedBuild == null) {
+            audit.check(jobName, newContext.getBuildNumber(index), newContext.getResult(index), null);
+            return null;
         }
+        audit.check(jobName, matchedBuild.buildNumber, matchedBuild.result, matchedBuild.predicate.toString());
+        return matchedBuild;
+    }
+
+    /**
+     * A monitored build matching an expected result.
+     */
+    private static final class MatchedBuild {
+
+        private final String jobName;
 
-        Integer oldLastBuildNumber = oldContextResults.get(jobName);
-        if (oldLastBuildNumber == null || oldLastBuildNumber == 0) {
-            return isMatchingExpectedResults(jobName, expectedResults, log, newContextResults.get(jobName));
+        private final int buildNumber;
+
+        private final Result result;
+
+        /*
+        * Start time of the build in milliseconds since the epoch, 0 if unknown
+        */
+        private final long startTime;
+
+        private final ResultPredicate predicate;
+
+        private MatchedBuild(String jobName, int buildNumber, Result result, long startTime, ResultPredicate predicate) {
+            this.jobName = jobName;
+            this.buildNumber = buildNumber;
+            this.result = result;
+            this.startTime = startTime;
+            this.predicate = predicate;
         }
 
-        //Process if there is a new build between now and previous polling
-        if (newLastBuildNumber.intValue() != oldLastBuildNumber.intValue()) {
-            return isMatchingExpectedResults(jobName, expectedResults, log, newContextResults.get(jobName));
+        @Override
+        public String toString() {
+            return describeBuild(jobName, buildNumber, result);
         }
+    }
 
-        log.info(String.format("There are no new builds for the job %s.", jobName));
-        return false;
+    /**
+     * @return the new build of the job matching the expected results,
+     * or a missed intermediate build in catch-up mode, null if none matches
+     */
+    private MatchedBuild findMatchingBuild(String jobName, int index, ResultPredicate[] expectedResults,
+                                           BuildResultTriggerContext oldContext, BuildResultTriggerContext newContext,
+                                           BuildResultTriggerLog log) {
+        int buildNumber = newContext.getBuildNumber(index);
+        int oldIndex = oldContext == null ? -1 : oldContext.indexOf(jobName, index);
+        int oldBuildNumber = oldIndex < 0 ? BuildResultTriggerContext.NO_BUILD : oldContext.getBuildNumber(oldIndex);
+        // The result of the previous build is known without loading it when no build was missed
+        int previousResultOrdinal = oldBuildNumber != BuildResultTriggerContext.NO_BUILD && oldBuildNumber == buildNumber - 1
+                ? oldContext.getResultOrdinal(oldIndex) : ResultPredicate.UNKNOWN;
+        ResultPredicate predicate = getMatchingExpectedResult(jobName, expectedResults, log, buildNumber, newContext.getResultOrdinal(index), previousResultOrdinal);
+        if (predicate != null) {
+            return new MatchedBuild(jobName, buildNumber, newContext.getResult(index), newContext.getStartTime(index), predicate);
+        }
+        if (!catchUpMissedBuilds || oldContext == null) {
+            return null;
+        }
+        return findMatchingMissedBuild(jobName, expectedResults, log, oldBuildNumber, buildNumber);
     }
 
-    private boolean isMatchingExpectedResults(String jobName, CheckedResult[] expectedResults, XTriggerLog log, Integer buildId) {
-        log.info(String.format("Checking expected job build results for the job %s.", jobName));
+    /**
+     * Walks the builds completed between two polls, oldest first, and stops at the first one matching the expected results.
+     * At most {@link #CATCH_UP_LIMIT} builds are loaded.
+     */
+    private MatchedBuild findMatchingMissedBuild(String jobName, ResultPredicate[] expectedResults, BuildResultTriggerLog log,
+                                                 int oldBuildNumber, int newBuildNumber) {
+        if (oldBuildNumber == BuildResultTriggerContext.NO_BUILD || newBuildNumber - oldBuildNumber <= 1
+                || expectedResults == null || expectedResults.length == 0) {
+            return null;
+        }
+        Job jobObj = resolveJob(jobName);
+        if (jobObj == null) {
+            return null;
+        }
+
+        int examined = 0;
+        for (Run run = jobObj.getNearestBuild(oldBuildNumber + 1); run != null && run.getNumber() < newBuildNumber; run = run.getNextBuild()) {
+            if (examined++ >= CATCH_UP_LIMIT) {
+                log.info(String.format("Stopped looking for missed builds of the job %s after %d builds.", jobName, CATCH_UP_LIMIT));
+                break;
+            }
+            Result result = run.isBuilding() ? null : run.getResult();
+            if (result == null) {
+                continue;
+            }
+            final Run<?, ?> missedBuild = run;
+            ResultPredicate predicate = getMatchingPredicate(expectedResults, result.ordinal, ResultPredicate.UNKNOWN, () -> missedBuild);
+            if (predicate != null) {
+                log.info(String.format("Missed build #%d of the job %s matches the expected result %s.", run.getNumber(), jobName, predicate));
+                return new MatchedBuild(jobName, run.getNumber(), result, run.getStartTimeInMillis(), predicate);
+            }
+        }
+        return null;
+    }
+
+    private static ResultPredicate getMatchingPredicate(ResultPredicate[] expectedResults, int resultOrdinal,
+                                                        int previousResultOrdinal, Supplier<Run<?, ?>> build) {
+        for (ResultPredicate predicate : expectedResults) {
+            if (predicate.matches(resultOrdinal, previousResultOrdinal, build)) {
+                return predicate;
+            }
+        }
+        return null;
+    }
+
+    private static String describeBuild(String jobName, int buildNumber, Result result) {
+        return String.format("%s #%d (%s)", jobName, buildNumber, result);
+    }
+
+    /**
+     * @return the first expected result matched by the given build, null if none
+     */
+    private ResultPredicate getMatchingExpectedResult(String jobName, ResultPredicate[] expectedResults, BuildResultTriggerLog log,
+                                                      int buildId, int resultOrdinal, int previousResultOrdinal) {
+        if (log.isVerbose()) {
+            log.verbose(String.format("Checking expected job build results for the job %s.", jobName));
+        }
 
         if (expectedResults == null || expectedResults.length == 0) {
             log.info("No results to check. You have to specify at least one expected build result in the build-result trigger configuration.");
-            return false;
+            return null;
         }
-        if (buildId == null) {
+        if (buildId == BuildResultTriggerContext.NO_BUILD) {
             // no complete build was found so can't trigger here.
-            return false;
+            return null;
+        }
+
+        // Loaded at most once, and only if a predicate needs more than the captured result
+        BuildLoader build = new BuildLoader(jobName, buildId);
+        if (resultOrdinal == BuildResultTriggerContext.NO_RESULT) {
+            // context recorded without the result, fall back to the build record
+            Run<?, ?> run = build.get();
+            if (run == null || run.getResult() == null) {
+                return null;
+            }
+            resultOrdinal = run.getResult().ordinal;
         }
 
-    	ItemGroup pjob = null;
-    	
-        if( this.job != null ) {
-        	pjob = this.job.getParent() ;
+        for (ResultPredicate predicate : expectedResults) {
+            if (log.isVerbose()) {
+                log.verbose(String.format("Checking %s", predicate));
+            }
+            if (predicate.matches(resultOrdinal, previousResultOrdinal, build)) {
+                log.info(String.format("Last build result for the job %s matches the expected result %s.", jobName, predicate));
+                return predicate;
+            }
         }
 
-        Job jobObj = Jenkins.get().getItem(jobName, pjob, Job.class);
-        Run jobObjLastBuild = jobObj.getBuildByNumber(buildId.intValue());
-        Result jobObjectLastResult = jobObjLastBuild.getResult();
+        return null;
+    }
 
-        for (CheckedResult checkedResult : expectedResults) {
-            log.info(String.format("Checking %s", checkedResult.getResult().toString()));
-            if (checkedResult.getResult().ordinal == jobObjectLastResult.ordinal) {
-                log.info(String.format("Last build result for the job %s matches the expected result %s.", jobName, jobObjectLastResult));
-                return true;
+    /**
+     * Loads a build of a monitored job on first use.
+     */
+    private final class BuildLoader implements Supplier<Run<?, ?>> {
+
+        private final String jobName;
+
+        private final int buildNumber;
+
+        private boolean loaded;
+
+        private Run<?, ?> build;
+
+        private BuildLoader(String jobName, int buildNumber) {
+            this.jobName = jobName;
+            this.buildNumber = buildNumber;
+        }
+
+        @Override
+        public Run<?, ?> get() {
+            if (!loaded) {
+                loaded = true;
+                Job<?, ?> jobObj = resolveJob(jobName);
+                build = jobObj == null ? null : jobObj.getBuildByNumber(buildNumber);
             }
+            return build;
+        }
+    }
+
+    /**
+     * @return the full names of the monitored jobs, resolved from the owner job location
+     */
+    Set<String> getWatchedFullNames() {
+        ItemGroup pjob = Jenkins.get();
+        if (this.job != null) {
+            pjob = this.job.getParent();
         }
 
-        return false;
+        Set<String> names = new HashSet<String>();
+        for (BuildResultTriggerInfo info : jobsInfo) {
+            for (String jobName : info.getJobNamesAsArray()) {
+                if (JobSelector.isPattern(jobName)) {
+                    // Patterns are matched by BuildResultTriggerIndex itself
+                    continue;
+                }
+                names.add(Items.getCanonicalName(pjob, jobName));
+                // Jenkins.getItem falls back to an absolute lookup when the relative one fails
+                names.add(StringUtils.removeStart(jobName, "/"));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return the full name of the job owning this trigger, null if the trigger is not started
+     */
+    String getJobFullName() {
+        return job == null ? null : job.getFullName();
+    }
+
+    /**
+     * @return the full names of the existing monitored jobs, including the ones selected by patterns
+     */
+    Set<String> getTriggerGraphNames() {
+        ItemGroup pjob = job != null ? job.getParent() : Jenkins.get();
+        Set<String> names = new HashSet<String>();
+        for (BuildResultTriggerInfo info : jobsInfo) {
+            for (String jobName : info.getJobNamesAsArray()) {
+                if (JobSelector.isPattern(jobName)) {
+                    continue;
+                }
+                String canonicalName = Items.getCanonicalName(pjob, jobName);
+                String absoluteName = StringUtils.removeStart(jobName, "/");
+                if (JobNameIndex.get().contains(canonicalName)) {
+                    names.add(canonicalName);
+                } else if (JobNameIndex.get().contains(absoluteName)) {
+                    names.add(absoluteName);
+                }
+            }
+        }
+        names.addAll(getJobTable().patternNames);
+        return names;
     }
 
     public boolean onJobRenamed(String fullOldName, String fullNewName) {
@@ -341,18 +1492,25 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
         for (BuildResultTriggerInfo b : jobsInfo) {
             result &= b.onJobRenamed(fullOldName, fullNewName);
         }
+        jobTable = null;
+        configurationDigest = null;
         return result;
     }
 
     @Extension
+    @Symbol("buildResult")
     @SuppressWarnings("unused")
     public static class BuildResultTriggerDescriptor extends XTriggerDescriptor {
 
-        private transient final SequentialExecutionQueue queue = new SequentialExecutionQueue(Executors.newSingleThreadExecutor());
+        private transient final BuildResultTriggerExecutor executor = new BuildResultTriggerExecutor();
 
         @Override
         public ExecutorService getExecutor() {
-            return queue.getExecutors();
+            return executor;
+        }
+
+        public int getPollingQueueDepth() {
+            return executor.getQueueDepth();
         }
 
         @Override
@@ -374,20 +1532,110 @@ public class BuildResultTrigger extends AbstractTriggerByFullContext<BuildResult
     @Extension
     public static class ItemListenerImpl extends ItemListener {
         @Override
-        public void onRenamed(Item item, String oldName, String newName) {
-            String fullNewName = item.getFullName();
-            String fullOldName = StringUtils.removeEnd(fullNewName, newName) + oldName;
-            for (Project<?, ?> p : Jenkins.getInstance().getAllItems(Project.class)) {
-                BuildResultTrigger t = p.getTrigger(BuildResultTrigger.class);
-                if (t != null) {
-                    if (t.onJobRenamed(fullOldName, fullNewName)) {
-                        try {
-                            p.save();
-                        } catch (IOException e) {
-                            LOGGER.log(Level.WARNING, "Failed to persist project setting during rename from " + oldName + " to " + newName, e);
-                        }
+        public void onLoaded() {
+            JobNameIndex.get().reload();
+            // The triggers started while loading the items could not resolve their jobs in the trigger graph yet
+            BuildResultTriggerIndex.get().refreshAll();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+            if (item instanceof Job) {
+                JobNameIndex.get().add(item.getFullName());
+                refreshWatchers(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+            if (item instanceof Job) {
+                JobNameIndex.get().add(item.getFullName());
+                refreshWatchers(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            ITEMS_GENERATION.incrementAndGet();
+            UpstreamSnapshotCache.get().remove(oldFullName);
+            UpstreamActivity.get().remove(oldFullName);
+            if (item instanceof Job) {
+                JobNameIndex.get().remove(oldFullName);
+                JobNameIndex.get().add(newFullName);
+            }
+            for (BuildResultTrigger t : BuildResultTriggerIndex.get().getWatchers(oldFullName)) {
+                if (t.onJobRenamed(oldFullName, newFullName) && t.job != null) {
+                    try {
+                        t.job.save();
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Failed to persist project setting during rename from " + oldFullName + " to " + newFullName, e);
                     }
                 }
+                BuildResultTriggerIndex.get().register(t);
+            }
+            if (item instanceof Job) {
+                refreshWatchers(newFullName);
+            }
+            // Relative job names of a moved job resolve against its new location
+            refresh(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+            refresh(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            ITEMS_GENERATION.incrementAndGet();
+            UpstreamSnapshotCache.get().remove(item.getFullName());
+            UpstreamActivity.get().remove(item.getFullName());
+            JobNameIndex.get().remove(item.getFullName());
+            if (item instanceof Job) {
+                BuildResultTrigger t = ParameterizedJobMixIn.getTrigger((Job<?, ?>) item, BuildResultTrigger.class);
+                if (t != null) {
+                    BuildResultTriggerIndex.get().unregister(t);
+                }
+                refreshWatchers(item.getFullName());
+            }
+        }
+
+        /**
+         * Registers again the triggers monitoring the given job, so that the trigger graph follows it.
+         */
+        private void refreshWatchers(String fullName) {
+            for (BuildResultTrigger t : BuildResultTriggerIndex.get().getWatchers(fullName)) {
+                BuildResultTriggerIndex.get().register(t);
+            }
+        }
+
+        private void refresh(Item item) {
+            if (item instanceof Job) {
+                BuildResultTrigger t = ParameterizedJobMixIn.getTrigger((Job<?, ?>) item, BuildResultTrigger.class);
+                if (t != null) {
+                    BuildResultTriggerIndex.get().register(t);
+                }
+            }
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            String fullName = run.getParent().getFullName();
+            UpstreamSnapshotCache.get().invalidate(fullName);
+            UpstreamActivity.get().recordCompletion(fullName, System.currentTimeMillis());
+            for (BuildResultTrigger t : BuildResultTriggerIndex.get().getWatchers(fullName)) {
+                // Goes through the regular polling cycle so checkIfModified decides and schedules the build.
+                if (t.isEvaluateOnCompletion()) {
+                    t.pollNow();
+                } else if (t.isAdaptiveScheduling() && t.job != null) {
+                    t.pollLater();
+                }
             }
         }
     }
@@ -0,0 +1,404 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.Result;
+import jenkins.util.SystemProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary audit trail of the trigger decisions of a job, one record per new monitored build seen by a poll,
+ * whether the poll checked it or reached its decision first.
+ * <p>
+ * Each record is framed by its length on both sides, so that pages are read newest first, straight from the file,
+ * without loading the whole trail. A record torn by a crash is dropped, along with anything after it, before the
+ * next read or append. When the file grows over
+ * {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerAudit.maxSize} bytes (1 MiB by default),
+ * its older half is dropped. Setting {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerAudit.enabled}
+ * to false stops recording the polls, the existing trail can still be read.
+ */
+public final class BuildResultTriggerAudit {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerAudit.class.getName());
+
+    static final boolean ENABLED = SystemProperties.getBoolean(BuildResultTriggerAudit.class.getName() + ".enabled", true);
+
+    static final long MAX_SIZE = SystemProperties.getLong(BuildResultTriggerAudit.class.getName() + ".maxSize", 1024 * 1024L);
+
+    /*
+    * Audit file -> monitor serializing its writes
+    */
+    private static final ConcurrentMap<File, Object> MONITORS = new ConcurrentHashMap<File, Object>();
+
+    /**
+     * Outcome of the poll a record was taken by.
+     */
+    public enum Decision {
+        /**
+         * The poll triggered a build.
+         */
+        TRIGGERED,
+        /**
+         * The poll handed the build over to the batcher.
+         */
+        BATCHED,
+        /**
+         * A build had already been triggered for the same builds.
+         */
+        DUPLICATE,
+        /**
+         * The poll did not trigger a build.
+         */
+        NOT_TRIGGERED,
+        /**
+         * The build was new, but the poll reached its decision without checking it.
+         */
+        NOT_EVALUATED
+    }
+
+    private final File file;
+
+    public BuildResultTriggerAudit(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Monitored builds checked by one poll, written once the decision of the poll is known.
+     */
+    public static final class Poll {
+
+        private final long time = System.currentTimeMillis();
+
+        private final List<Record> checks = new ArrayList<Record>();
+
+        private final Set<String> checkedJobs = new HashSet<String>();
+
+        void check(String upstreamJob, int buildNumber, Result result, String predicate) {
+            checkedJobs.add(upstreamJob);
+            checks.add(new Record(time, upstreamJob, buildNumber, result == null ? -1 : result.ordinal, predicate, null, 0));
+        }
+
+        /**
+         * Records a new build of a job the poll did not check, unless the job was checked.
+         */
+        void skip(String upstreamJob, int buildNumber, Result result) {
+            if (checkedJobs.add(upstreamJob)) {
+                checks.add(new Record(time, upstreamJob, buildNumber, result == null ? -1 : result.ordinal, null,
+                        Decision.NOT_EVALUATED, 0));
+            }
+        }
+
+        boolean isEmpty() {
+            return checks.isEmpty();
+        }
+    }
+
+    /**
+     * Appends the checks of the given poll.
+     */
+    public void append(Poll poll, Decision decision, long durationNanos) throws IOException {
+        if (poll.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Record check : poll.checks) {
+            byte[] payload = check.with(decision, durationNanos).toBytes();
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeInt(payload.length);
+        }
+        out.flush();
+
+        synchronized (MONITORS.computeIfAbsent(file, k -> new Object())) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                recover(raf);
+                raf.seek(raf.length());
+                raf.write(bytes.toByteArray());
+            }
+            if (file.length() > MAX_SIZE) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Truncates the file after its last complete record if its tail is torn, for instance by a crash during an append.
+     */
+    private void recover(RandomAccessFile raf) throws IOException {
+        long length = raf.length();
+        if (isCompleteRecordEnd(raf, length)) {
+            return;
+        }
+        // Rare: walks the records from the start, up to the first incomplete one
+        long end = 0;
+        while (end + 8 <= length) {
+            raf.seek(end);
+            int recordLength = raf.readInt();
+            long next = end + 8 + recordLength;
+            if (recordLength < 0 || next > length || !isCompleteRecordEnd(raf, next)) {
+                break;
+            }
+            end = next;
+        }
+        LOGGER.log(Level.WARNING, "Dropping {0} bytes torn off the end of the trigger audit trail {1}",
+                new Object[]{length - end, file});
+        raf.setLength(end);
+    }
+
+    /**
+     * @return true if the given position is the end of the file or of a record, as told by the lengths framing it
+     */
+    private static boolean isCompleteRecordEnd(RandomAccessFile raf, long position) throws IOException {
+        if (position == 0) {
+            return true;
+        }
+        if (position < 8) {
+            return false;
+        }
+        raf.seek(position - 4);
+        int length = raf.readInt();
+        long start = position - 8 - (long) length;
+        if (length < 0 || start < 0) {
+            return false;
+        }
+        raf.seek(start);
+        return raf.readInt() == length;
+    }
+
+    /**
+     * Keeps the newest records fitting in half the maximum size.
+     */
+    private void compact() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long start = raf.length();
+            while (start > 0) {
+                raf.seek(start - 4);
+                long recordStart = start - 8 - raf.readInt();
+                if (recordStart < 0 || raf.length() - recordStart > MAX_SIZE / 2) {
+                    break;
+                }
+                start = recordStart;
+            }
+            try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+                out.setLength(0);
+                byte[] buffer = new byte[8192];
+                raf.seek(start);
+                int read;
+                while ((read = raf.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a page of records, newest first.
+     *
+     * @param before   the position to read before, as returned by {@link Page#getNext()}, or a negative value for the newest records
+     * @param limit    the maximum number of records
+     * @param upstream the upstream job to return the records of, or null for all of them
+     */
+    public Page read(long before, int limit, String upstream) throws IOException {
+        if (!file.exists()) {
+            return Page.empty();
+        }
+        synchronized (MONITORS.computeIfAbsent(file, k -> new Object())) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                recover(raf);
+            }
+        }
+        List<Record> records = new ArrayList<Record>();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long position = before < 0 || before > raf.length() ? raf.length() : before;
+            while (position > 0 && records.size() < limit) {
+                raf.seek(position - 4);
+                int length = raf.readInt();
+                long recordStart = position - 8 - length;
+                if (length < 0 || recordStart < 0) {
+                    // Torn write, nothing older can be trusted
+                    position = 0;
+                    break;
+                }
+                byte[] payload = new byte[length];
+                raf.seek(recordStart + 4);
+                raf.readFully(payload);
+                Record record;
+                try {
+                    record = Record.fromBytes(payload);
+                } catch (IOException | RuntimeException e) {
+                    // Not a record boundary, for instance a position from before a compaction
+                    position = 0;
+                    break;
+                }
+                if (upstream == null || upstream.equals(record.getUpstreamJob())) {
+                    records.add(record);
+                }
+                position = recordStart;
+            }
+            return new Page(records, position > 0 ? position : -1);
+        }
+    }
+
+    /**
+     * Records read from the audit trail, with the position to read the next (older) page from.
+     */
+    public static final class Page {
+
+        private final List<Record> records;
+
+        private final long next;
+
+        private Page(List<Record> records, long next) {
+            this.records = Collections.unmodifiableList(records);
+            this.next = next;
+        }
+
+        public static Page empty() {
+            return new Page(Collections.<Record>emptyList(), -1);
+        }
+
+        public List<Record> getRecords() {
+            return records;
+        }
+
+        /**
+         * @return the position to read the next page from, -1 if there are no older records
+         */
+        public long getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * A monitored build checked by a poll.
+     */
+    public static final class Record {
+
+        private final long time;
+
+        private final String upstreamJob;
+
+        private final int buildNumber;
+
+        private final int resultOrdinal;
+
+        private final String predicate;
+
+        private final Decision decision;
+
+        private final long durationNanos;
+
+        private Record(long time, String upstreamJob, int buildNumber, int resultOrdinal, String predicate,
+                       Decision decision, long durationNanos) {
+            this.time = time;
+            this.upstreamJob = upstreamJob;
+            this.buildNumber = buildNumber;
+            this.resultOrdinal = resultOrdinal;
+            this.predicate = predicate;
+            this.decision = decision;
+            this.durationNanos = durationNanos;
+        }
+
+        private Record with(Decision decision, long durationNanos) {
+            // A build not evaluated keeps its decision, whatever the poll decided
+            Decision recorded = this.decision == Decision.NOT_EVALUATED ? this.decision : decision;
+            return new Record(time, upstreamJob, buildNumber, resultOrdinal, predicate, recorded, durationNanos);
+        }
+
+        private byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(time);
+            out.writeByte(decision.ordinal());
+            out.writeInt(buildNumber);
+            out.writeByte(resultOrdinal);
+            out.writeLong(durationNanos);
+            out.writeUTF(upstreamJob);
+            out.writeUTF(predicate == null ? "" : predicate);
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private static Record fromBytes(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            long time = in.readLong();
+            Decision decision = Decision.values()[in.readByte()];
+            int buildNumber = in.readInt();
+            int resultOrdinal = in.readByte();
+            long durationNanos = in.readLong();
+            String upstreamJob = in.readUTF();
+            String predicate = in.readUTF();
+            return new Record(time, upstreamJob, buildNumber, resultOrdinal, predicate.isEmpty() ? null : predicate,
+                    decision, durationNanos);
+        }
+
+        /**
+         * @return the time of the poll in milliseconds since the epoch
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public Date getDate() {
+            return new Date(time);
+        }
+
+        public String getUpstreamJob() {
+            return upstreamJob;
+        }
+
+        public int getBuildNumber() {
+            return buildNumber;
+        }
+
+        /**
+         * @return the result of the checked build, null if it was not captured
+         */
+        public Result getResult() {
+            return BuildResultTriggerContext.toResult(resultOrdinal);
+        }
+
+        /**
+         * @return the description of the matching expected result, null if the build did not match
+         */
+        public String getPredicate() {
+            return predicate;
+        }
+
+        public boolean isMatched() {
+            return predicate != null;
+        }
+
+        public Decision getDecision() {
+            return decision;
+        }
+
+        public double getDurationMillis() {
+            return durationNanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.Queue;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects the trigger decisions taken during a short window and schedules the triggered jobs in one pass.
+ * <p>
+ * Decisions for the same job are merged into a single build whose {@link BuildResultTriggerCause} lists every
+ * matching monitored build. If the job is already in the queue, the Jenkins queue folds the cause into the queued item.
+ * The window is set in milliseconds by the
+ * {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerBatcher.window} system property,
+ * 0 (the default) schedules the builds directly from the polling.
+ */
+public final class BuildResultTriggerBatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerBatcher.class.getName());
+
+    static final long WINDOW = SystemProperties.getLong(BuildResultTriggerBatcher.class.getName() + ".window", 0L);
+
+    private static final BuildResultTriggerBatcher INSTANCE = new BuildResultTriggerBatcher();
+
+    /*
+    * Job full name -> decisions waiting for the end of the window
+    */
+    private final Map<String, Pending> pending = new LinkedHashMap<String, Pending>();
+
+    private BuildResultTriggerBatcher() {
+    }
+
+    public static BuildResultTriggerBatcher get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return WINDOW > 0;
+    }
+
+    /**
+     * Records a decision to trigger the given job, scheduled at the end of the current window.
+     * Only called when batching is enabled, the trigger lets the xtrigger base class schedule the build otherwise.
+     */
+    public void submit(Job<?, ?> job, String causeFrom, Collection<String> upstreamBuilds, Collection<String> decisionKeys) {
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                Timer.get().schedule(this::flush, WINDOW, TimeUnit.MILLISECONDS);
+            }
+            Pending p = pending.get(job.getFullName());
+            if (p == null) {
+                p = new Pending(job, causeFrom);
+                pending.put(job.getFullName(), p);
+            }
+            p.upstreamBuilds.addAll(upstreamBuilds);
+            if (decisionKeys != null) {
+                p.decisionKeys.add(new ArrayList<String>(decisionKeys));
+            }
+        }
+    }
+
+    void flush() {
+        final List<Pending> batch;
+        synchronized (pending) {
+            batch = new ArrayList<Pending>(pending.values());
+            pending.clear();
+        }
+
+        Queue.withLock(new Runnable() {
+            @Override
+            public void run() {
+                for (Pending p : batch) {
+                    BuildResultTriggerCause cause = new BuildResultTriggerCause(p.causeFrom, p.upstreamBuilds);
+                    for (List<String> decisionKeys : p.decisionKeys) {
+                        cause.addDecision(decisionKeys);
+                    }
+                    schedule(p.job, cause);
+                }
+            }
+        });
+    }
+
+    private static void schedule(Job<?, ?> job, BuildResultTriggerCause cause) {
+        if (ParameterizedJobMixIn.scheduleBuild2(job, -1, new CauseAction(cause)) == null) {
+            LOGGER.log(Level.FINE, "{0} could not be scheduled.", job.getFullName());
+            return;
+        }
+        // Also when the cause was folded into a queued item, which does not notify the queue listeners
+        TriggerDecisionStore.recordScheduled(job, cause);
+    }
+
+    private static final class Pending {
+
+        private final Job<?, ?> job;
+
+        private final String causeFrom;
+
+        private final Set<String> upstreamBuilds = new LinkedHashSet<String>();
+
+        /*
+        * Keys of each merged decision
+        */
+        private final List<List<String>> decisionKeys = new ArrayList<List<String>>();
+
+        private Pending(Job<?, ?> job, String causeFrom) {
+            this.job = job;
+            this.causeFrom = causeFrom;
+        }
+    }
+}
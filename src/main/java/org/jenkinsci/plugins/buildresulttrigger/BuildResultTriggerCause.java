@@ -2,13 +2,67 @@ package org.jenkinsci.plugins.buildresulttrigger;
 
 import org.jenkinsci.plugins.xtriggerapi.XTriggerCause;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Gregory Boissinot
  */
-@Deprecated
 public class BuildResultTriggerCause extends XTriggerCause {
 
+    /*
+    * Monitored builds that matched, as 'job #number (result)'
+    */
+    private List<String> upstreamBuilds;
+
+    /*
+    * Keys of the trigger decisions merged into this cause, recorded in the TriggerDecisionStore once the build is scheduled
+    */
+    private transient List<List<String>> decisions;
+
+    /**
+     * @deprecated use {@link #BuildResultTriggerCause(String, Collection)}
+     */
+    @Deprecated
     public BuildResultTriggerCause(String causeFrom) {
         super("IvyTrigger", causeFrom, false);
     }
+
+    public BuildResultTriggerCause(String causeFrom, Collection<String> upstreamBuilds) {
+        super("BuildResultTrigger", causeFrom, false);
+        this.upstreamBuilds = new ArrayList<String>(upstreamBuilds);
+    }
+
+    synchronized void addDecision(List<String> decisionKeys) {
+        if (decisions == null) {
+            decisions = new ArrayList<List<String>>();
+        }
+        decisions.add(decisionKeys);
+    }
+
+    /**
+     * @return the keys of the trigger decisions not recorded yet, an empty list on later calls
+     */
+    synchronized List<List<String>> takeDecisions() {
+        List<List<String>> taken = decisions == null ? Collections.<List<String>>emptyList() : decisions;
+        decisions = null;
+        return taken;
+    }
+
+    public List<String> getUpstreamBuilds() {
+        if (upstreamBuilds == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(upstreamBuilds);
+    }
+
+    @Override
+    public String getShortDescription() {
+        if (upstreamBuilds == null || upstreamBuilds.isEmpty()) {
+            return super.getShortDescription();
+        }
+        return super.getShortDescription() + ": " + String.join(", ", upstreamBuilds);
+    }
 }
@@ -1,25 +1,368 @@
 package org.jenkinsci.plugins.buildresulttrigger;
 
+import hudson.model.Result;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerContext;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
+ * Last completed build of each monitored job, stored as parallel arrays indexed by job.
+ * The job name table is shared between the contexts captured by the same trigger,
+ * so comparing two contexts needs neither lookups nor allocations.
+ *
  * @author Gregory Boissinot
  */
 public class BuildResultTriggerContext implements XTriggerContext {
 
+    /**
+     * Build number recorded for a job without any completed build.
+     */
+    public static final int NO_BUILD = 0;
+
+    /**
+     * Result ordinal recorded when the result of the build has not been captured.
+     */
+    public static final int NO_RESULT = -1;
+
+    private static final Result[] RESULTS = {Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED};
+
+    /*
+    * Recorded map to know if a build has to be triggered, kept to read contexts persisted by previous versions
+    */
+    @Deprecated
+    private Map<String, Integer> results;
+
+    /*
+    * Monitored job names (interned), shared by the contexts of a trigger
+    */
+    private String[] jobNames;
+
+    /*
+    * Last completed build number per job, NO_BUILD if there is none
+    */
+    private int[] buildNumbers;
+
+    /*
+    * Result ordinal of the last completed build per job, NO_RESULT if it has not been captured
+    */
+    private int[] resultOrdinals;
+
     /*
-    * Recorded map to know if a build has to be triggered
+    * Start time of the last completed build per job, 0 if unknown, which tells a build from the build with the same
+    * number of a recreated job
     */
-    private Map<String, Integer> results = new HashMap<String, Integer>();
+    private long[] startTimes;
 
+    /*
+    * Combined mode remembering partial matches: jobs with a matching build since the last triggered build, null if none
+    */
+    private BitSet satisfied;
+
+    /*
+    * Number and result ordinal of the matching build per satisfied job, indexed as the jobs, null if none is satisfied
+    */
+    private int[] satisfiedBuildNumbers;
+
+    private int[] satisfiedResultOrdinals;
+
+    private long[] satisfiedStartTimes;
+
+    /**
+     * Context without the start times of the builds.
+     */
+    public BuildResultTriggerContext(String[] jobNames, int[] buildNumbers, int[] resultOrdinals) {
+        this(jobNames, buildNumbers, resultOrdinals, new long[jobNames.length]);
+    }
+
+    public BuildResultTriggerContext(String[] jobNames, int[] buildNumbers, int[] resultOrdinals, long[] startTimes) {
+        if (jobNames.length != buildNumbers.length || jobNames.length != resultOrdinals.length || jobNames.length != startTimes.length) {
+            throw new IllegalArgumentException("Job names, build numbers, result ordinals and start times must have the same length.");
+        }
+        this.jobNames = jobNames;
+        this.buildNumbers = buildNumbers;
+        this.resultOrdinals = resultOrdinals;
+        this.startTimes = startTimes;
+    }
+
+    /**
+     * @deprecated use {@link #BuildResultTriggerContext(String[], int[], int[])}
+     */
+    @Deprecated
     public BuildResultTriggerContext(Map<String, Integer> results) {
         this.results = results;
+        readResolve();
+    }
+
+    public int getJobCount() {
+        return jobNames.length;
+    }
+
+    public String getJobName(int index) {
+        return jobNames[index];
+    }
+
+    public int getBuildNumber(int index) {
+        return buildNumbers[index];
+    }
+
+    public int getResultOrdinal(int index) {
+        return resultOrdinals[index];
+    }
+
+    /**
+     * @return the result of the recorded build of the job at the given index, null if it has not been captured
+     */
+    public Result getResult(int index) {
+        return toResult(resultOrdinals[index]);
+    }
+
+    /**
+     * @return the start time of the recorded build of the job at the given index, 0 if it has not been captured
+     */
+    public long getStartTime(int index) {
+        return startTimes[index];
     }
 
+    /**
+     * @return the result with the given ordinal, null if there is none
+     */
+    public static Result toResult(int ordinal) {
+        for (Result result : RESULTS) {
+            if (result.ordinal == ordinal) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the index of a job, checking the expected position first.
+     *
+     * @param jobName the job name
+     * @param hint    the position the job is expected at, usually its index in another context of the same trigger
+     * @return the index of the job, -1 if it is not recorded in this context
+     */
+    public int indexOf(String jobName, int hint) {
+        if (hint >= 0 && hint < jobNames.length && (jobNames[hint] == jobName || jobNames[hint].equals(jobName))) {
+            return hint;
+        }
+        for (int i = 0; i < jobNames.length; i++) {
+            if (jobNames[i].equals(jobName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the job at the given index had a matching build since the last triggered build
+     */
+    public boolean isSatisfied(int index) {
+        return satisfied != null && satisfied.get(index);
+    }
+
+    public int getSatisfiedCount() {
+        return satisfied == null ? 0 : satisfied.cardinality();
+    }
+
+    /**
+     * @return the first index from the given one of a job without a matching build since the last triggered build, -1 if none
+     */
+    public int nextUnsatisfied(int fromIndex) {
+        int index = satisfied == null ? fromIndex : satisfied.nextClearBit(fromIndex);
+        return index < jobNames.length ? index : -1;
+    }
+
+    /**
+     * @return the number of the build satisfying the job at the given index, {@link #NO_BUILD} if the job is not satisfied
+     */
+    public int getSatisfiedBuildNumber(int index) {
+        return isSatisfied(index) ? satisfiedBuildNumbers[index] : NO_BUILD;
+    }
+
+    /**
+     * @return the result of the build satisfying the job at the given index, null if unknown or if the job is not satisfied
+     */
+    public Result getSatisfiedResult(int index) {
+        return isSatisfied(index) ? toResult(satisfiedResultOrdinals[index]) : null;
+    }
+
+    /**
+     * @return the start time of the build satisfying the job at the given index, 0 if unknown or if the job is not satisfied
+     */
+    public long getSatisfiedStartTime(int index) {
+        return isSatisfied(index) ? satisfiedStartTimes[index] : 0;
+    }
+
+    /**
+     * Records the build satisfying the job at the given index.
+     */
+    public void satisfy(int index, int buildNumber, int resultOrdinal, long startTime) {
+        if (satisfied == null) {
+            satisfied = new BitSet();
+            satisfiedBuildNumbers = new int[jobNames.length];
+            satisfiedResultOrdinals = new int[jobNames.length];
+            satisfiedStartTimes = new long[jobNames.length];
+        }
+        satisfied.set(index);
+        satisfiedBuildNumbers[index] = buildNumber;
+        satisfiedResultOrdinals[index] = resultOrdinal;
+        satisfiedStartTimes[index] = startTime;
+    }
+
+    /**
+     * Carries over the satisfied jobs of the previous context, along with their matching builds.
+     *
+     * @param previous the previously recorded context, may be null
+     */
+    public void carrySatisfied(BuildResultTriggerContext previous) {
+        if (previous == null || previous.satisfied == null) {
+            return;
+        }
+        for (int i = previous.satisfied.nextSetBit(0); i >= 0; i = previous.satisfied.nextSetBit(i + 1)) {
+            int index = indexOf(previous.jobNames[i], i);
+            if (index >= 0) {
+                satisfy(index, previous.satisfiedBuildNumbers[i], previous.satisfiedResultOrdinals[i], previous.satisfiedStartTimes[i]);
+            }
+        }
+    }
+
+    public void clearSatisfied() {
+        satisfied = null;
+        satisfiedBuildNumbers = null;
+        satisfiedResultOrdinals = null;
+        satisfiedStartTimes = null;
+    }
+
+    /**
+     * Computes the jobs whose last completed build moved since the previous context.
+     * Indexes of the returned delta are indexes in this context.
+     *
+     * @param previous the previously recorded context, may be null
+     * @param baseline true if the jobs not recorded at all in the previous context, such as jobs newly selected
+     *                 by a pattern or renamed, are taken as a baseline and not reported, false if they are reported
+     *                 as changed. Only a caller recording this context afterwards may take them as a baseline,
+     *                 otherwise they would never be reported.
+     */
+    public Delta diff(BuildResultTriggerContext previous, boolean baseline) {
+        Delta delta = new Delta(jobNames.length);
+        for (int i = 0; i < jobNames.length; i++) {
+            int previousIndex = previous == null ? -1 : previous.indexOf(jobNames[i], i);
+            if (baseline && previous != null && previousIndex < 0) {
+                continue;
+            }
+            int previousNumber = previousIndex < 0 ? NO_BUILD : previous.buildNumbers[previousIndex];
+            int number = buildNumbers[i];
+            // A job without completed build anymore has nothing to check
+            if (number != previousNumber && number != NO_BUILD) {
+                delta.changed.set(i);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Jobs with a new completed build between two contexts.
+     */
+    public static final class Delta {
+
+        private final int size;
+
+        private final BitSet changed = new BitSet();
+
+        private Delta(int size) {
+            this.size = size;
+        }
+
+        public int getChangedCount() {
+            return changed.cardinality();
+        }
+
+        /**
+         * @return the first index from the given one with a new completed build, -1 if none
+         */
+        public int nextChanged(int fromIndex) {
+            return changed.nextSetBit(fromIndex);
+        }
+
+        /**
+         * @return the first index from the given one without a new completed build, -1 if none
+         */
+        public int nextUnchanged(int fromIndex) {
+            int index = changed.nextClearBit(fromIndex);
+            return index < size ? index : -1;
+        }
+    }
+
+    /**
+     * @deprecated use {@link #getBuildNumber(int)}, this builds a new map on every call
+     */
+    @Deprecated
     public Map<String, Integer> getResults() {
-        return results;
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        for (int i = 0; i < jobNames.length; i++) {
+            if (buildNumbers[i] != NO_BUILD) {
+                map.put(jobNames[i], buildNumbers[i]);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BuildResultTriggerContext)) {
+            return false;
+        }
+        BuildResultTriggerContext that = (BuildResultTriggerContext) o;
+        return (jobNames == that.jobNames || Arrays.equals(jobNames, that.jobNames))
+                && Arrays.equals(buildNumbers, that.buildNumbers)
+                && Arrays.equals(resultOrdinals, that.resultOrdinals)
+                && Arrays.equals(startTimes, that.startTimes)
+                && Objects.equals(satisfied, that.satisfied)
+                && Arrays.equals(satisfiedBuildNumbers, that.satisfiedBuildNumbers)
+                && Arrays.equals(satisfiedResultOrdinals, that.satisfiedResultOrdinals)
+                && Arrays.equals(satisfiedStartTimes, that.satisfiedStartTimes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(jobNames) + Arrays.hashCode(buildNumbers);
+    }
+
+    protected Object readResolve() {
+        if (jobNames == null) {
+            Map<String, Integer> legacy = results != null ? results : new HashMap<String, Integer>();
+            jobNames = new String[legacy.size()];
+            buildNumbers = new int[legacy.size()];
+            resultOrdinals = new int[legacy.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : legacy.entrySet()) {
+                jobNames[i] = entry.getKey().intern();
+                buildNumbers[i] = entry.getValue() != null ? entry.getValue() : NO_BUILD;
+                resultOrdinals[i] = NO_RESULT;
+                i++;
+            }
+            results = null;
+        }
+        if (startTimes == null) {
+            // Recorded by a previous version, without the start times
+            startTimes = new long[jobNames.length];
+        }
+        if (satisfied != null && satisfiedBuildNumbers == null) {
+            // Recorded without the matching builds, the last builds are the best known
+            satisfiedBuildNumbers = buildNumbers.clone();
+            satisfiedResultOrdinals = resultOrdinals.clone();
+        }
+        if (satisfied != null && satisfiedStartTimes == null) {
+            satisfiedStartTimes = new long[jobNames.length];
+        }
+        return this;
     }
 }
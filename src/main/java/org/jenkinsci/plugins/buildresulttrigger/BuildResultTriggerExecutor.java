@@ -0,0 +1,235 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.Item;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded worker pool running the trigger polls.
+ * <p>
+ * Polls of the same job are serialized: a poll submitted while another one of the same job is running waits for it.
+ * Every accepted poll is run, the polls requested while a poll of the same job is in progress being folded by the
+ * trigger itself (see {@link BuildResultTrigger#pollNow()}), which keeps the queue bounded by the number of jobs
+ * when a poll cycle overruns the next one.
+ * <p>
+ * The pool size defaults to the number of available processors and can be tuned with the
+ * {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerExecutor.threads} system property.
+ * Setting {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerExecutor.virtualThreads}
+ * runs the polls on virtual threads when the JDK supports them.
+ */
+public class BuildResultTriggerExecutor extends AbstractExecutorService {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerExecutor.class.getName());
+
+    static final int THREADS = SystemProperties.getInteger(BuildResultTriggerExecutor.class.getName() + ".threads",
+            Runtime.getRuntime().availableProcessors());
+
+    static final boolean VIRTUAL_THREADS = SystemProperties.getBoolean(BuildResultTriggerExecutor.class.getName() + ".virtualThreads");
+
+    /*
+    * Poll being submitted on the current thread
+    */
+    private static final ThreadLocal<Submission> CURRENT = new ThreadLocal<Submission>();
+
+    private final ThreadPoolExecutor pool;
+
+    /*
+    * Job key -> polls waiting for the running one of the same job
+    */
+    private final Map<String, Deque<KeyedTask>> inProgress = new HashMap<String, Deque<KeyedTask>>();
+
+    public BuildResultTriggerExecutor() {
+        int threads = Math.max(1, THREADS);
+        pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), createThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        if (VIRTUAL_THREADS) {
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "BuildResultTrigger polling-", 0L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.log(Level.INFO, "Virtual threads are not supported by this JDK, using platform threads for polling.");
+            }
+        }
+        return new NamingThreadFactory(new DaemonThreadFactory(), "BuildResultTrigger polling");
+    }
+
+    /**
+     * Marks the polls submitted from the current thread as belonging to the given job.
+     *
+     * @param onDone called once the submitted poll has run
+     */
+    static void enterPoll(Item job, Runnable onDone) {
+        if (job != null) {
+            CURRENT.set(new Submission(job.getFullName(), onDone));
+        }
+    }
+
+    /**
+     * @return true if a poll submitted from the current thread has been accepted, in which case
+     * the callback given to {@link #enterPoll(Item, Runnable)} will be called once it has run
+     */
+    static boolean exitPoll() {
+        Submission submission = CURRENT.get();
+        CURRENT.remove();
+        return submission != null && submission.accepted;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Submission submission = CURRENT.get();
+        if (submission == null) {
+            pool.execute(command);
+            return;
+        }
+
+        KeyedTask task = new KeyedTask(submission.key, command, submission.onDone);
+        synchronized (inProgress) {
+            Deque<KeyedTask> waiting = inProgress.get(task.key);
+            if (waiting == null) {
+                pool.execute(task);
+                inProgress.put(task.key, new ArrayDeque<KeyedTask>());
+            } else {
+                waiting.add(task);
+            }
+        }
+        submission.accepted = true;
+    }
+
+    private void done(String key) {
+        List<KeyedTask> dropped = null;
+        synchronized (inProgress) {
+            Deque<KeyedTask> waiting = inProgress.get(key);
+            KeyedTask next = waiting == null ? null : waiting.poll();
+            if (next == null) {
+                inProgress.remove(key);
+            } else {
+                try {
+                    pool.execute(next);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to run the next poll of " + key, e);
+                    dropped = new ArrayList<KeyedTask>();
+                    dropped.add(next);
+                    dropped.addAll(waiting);
+                    inProgress.remove(key);
+                }
+            }
+        }
+        if (dropped != null) {
+            // Never run, but over: their triggers must not wait for them
+            for (KeyedTask task : dropped) {
+                task.notifyDone();
+            }
+        }
+    }
+
+    /**
+     * @return the number of polls waiting for a worker or for a running poll of the same job
+     */
+    public int getQueueDepth() {
+        int pending = 0;
+        synchronized (inProgress) {
+            for (Deque<KeyedTask> waiting : inProgress.values()) {
+                pending += waiting.size();
+            }
+        }
+        return pool.getQueue().size() + pending;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<Runnable>(pool.shutdownNow());
+        synchronized (inProgress) {
+            for (Deque<KeyedTask> waiting : inProgress.values()) {
+                tasks.addAll(waiting);
+            }
+            inProgress.clear();
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    private static final class Submission {
+
+        private final String key;
+
+        private final Runnable onDone;
+
+        private boolean accepted;
+
+        private Submission(String key, Runnable onDone) {
+            this.key = key;
+            this.onDone = onDone;
+        }
+    }
+
+    private final class KeyedTask implements Runnable {
+
+        private final String key;
+
+        private final Runnable command;
+
+        private final Runnable onDone;
+
+        private KeyedTask(String key, Runnable command, Runnable onDone) {
+            this.key = key;
+            this.command = command;
+            this.onDone = onDone;
+        }
+
+        @Override
+        public void run() {
+            try {
+                command.run();
+            } finally {
+                done(key);
+                notifyDone();
+            }
+        }
+
+        private void notifyDone() {
+            if (onDone != null) {
+                onDone.run();
+            }
+        }
+    }
+}
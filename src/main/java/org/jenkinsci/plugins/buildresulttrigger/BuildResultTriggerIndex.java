@@ -0,0 +1,125 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory reverse index from the full name of a monitored job to the triggers watching it.
+ * Kept up to date when triggers are started or stopped and on job configuration changes and renames,
+ * so lookups never need to walk the whole item tree.
+ */
+public final class BuildResultTriggerIndex {
+
+    private static final BuildResultTriggerIndex INSTANCE = new BuildResultTriggerIndex();
+
+    /*
+    * Monitored job full name -> triggers watching it
+    */
+    private final ConcurrentMap<String, Set<BuildResultTrigger>> watchers = new ConcurrentHashMap<String, Set<BuildResultTrigger>>();
+
+    /*
+    * Trigger -> monitored job full names it has been registered with
+    */
+    private final ConcurrentMap<BuildResultTrigger, Set<String>> registrations = new ConcurrentHashMap<BuildResultTrigger, Set<String>>();
+
+    /*
+    * Triggers monitoring jobs through name patterns, matched on lookup
+    */
+    private final Set<BuildResultTrigger> patternWatchers = ConcurrentHashMap.newKeySet();
+
+    /*
+    * Trigger -> full name of its job in the trigger graph
+    */
+    private final ConcurrentMap<BuildResultTrigger, String> downstreamNames = new ConcurrentHashMap<BuildResultTrigger, String>();
+
+    private BuildResultTriggerIndex() {
+    }
+
+    public static BuildResultTriggerIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers (or refreshes the registration of) the given trigger with its current monitored jobs.
+     */
+    public synchronized void register(BuildResultTrigger trigger) {
+        unregister(trigger);
+        Set<String> names = trigger.getWatchedFullNames();
+        registrations.put(trigger, names);
+        if (trigger.hasSelectors()) {
+            patternWatchers.add(trigger);
+        }
+        for (String name : names) {
+            watchers.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).add(trigger);
+        }
+        String downstream = trigger.getJobFullName();
+        if (downstream != null) {
+            downstreamNames.put(trigger, downstream);
+            TriggerGraph.get().update(downstream, trigger.getTriggerGraphNames());
+        }
+    }
+
+    /**
+     * Registers again all the registered triggers, for instance once the job name index is loaded.
+     */
+    public synchronized void refreshAll() {
+        for (BuildResultTrigger trigger : new ArrayList<BuildResultTrigger>(registrations.keySet())) {
+            register(trigger);
+        }
+    }
+
+    public synchronized void unregister(BuildResultTrigger trigger) {
+        patternWatchers.remove(trigger);
+        String downstream = downstreamNames.remove(trigger);
+        if (downstream != null) {
+            TriggerGraph.get().remove(downstream);
+        }
+        Set<String> names = registrations.remove(trigger);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            Set<BuildResultTrigger> triggers = watchers.get(name);
+            if (triggers != null) {
+                triggers.remove(trigger);
+                if (triggers.isEmpty()) {
+                    watchers.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the monitored job full names the given trigger is registered with, never null
+     */
+    public Set<String> getWatchedNames(BuildResultTrigger trigger) {
+        Set<String> names = registrations.get(trigger);
+        return names == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * @return the triggers watching the job with the given full name, never null
+     */
+    public Collection<BuildResultTrigger> getWatchers(String fullName) {
+        Set<BuildResultTrigger> triggers = watchers.get(fullName);
+        if (triggers == null && patternWatchers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<BuildResultTrigger> result = new LinkedHashSet<BuildResultTrigger>();
+        if (triggers != null) {
+            result.addAll(triggers);
+        }
+        for (BuildResultTrigger trigger : patternWatchers) {
+            // Never matches the job of the trigger itself
+            if (trigger.matchesSelectors(fullName)) {
+                result.add(trigger);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Buffers the polling log lines of one poll phase and writes them to the polling log in a single write.
+ * <p>
+ * Lines are filtered by the verbosity set with the
+ * {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerLog.level} system property
+ * ({@code QUIET}, {@code NORMAL} or {@code VERBOSE}) and the buffer is capped to
+ * {@code org.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerLog.maxSize} characters per phase.
+ */
+public class BuildResultTriggerLog {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerLog.class.getName());
+
+    public enum Verbosity {
+        /**
+         * Only the trigger decisions.
+         */
+        QUIET,
+        /**
+         * The decisions and the jobs with new builds.
+         */
+        NORMAL,
+        /**
+         * Every check.
+         */
+        VERBOSE
+    }
+
+    static final Verbosity VERBOSITY = parseVerbosity(SystemProperties.getString(BuildResultTriggerLog.class.getName() + ".level"));
+
+    static final int MAX_SIZE = SystemProperties.getInteger(BuildResultTriggerLog.class.getName() + ".maxSize", 64 * 1024);
+
+    private final XTriggerLog log;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private boolean truncated;
+
+    public BuildResultTriggerLog(XTriggerLog log) {
+        this.log = log;
+    }
+
+    private static Verbosity parseVerbosity(String value) {
+        if (value == null) {
+            return Verbosity.NORMAL;
+        }
+        try {
+            return Verbosity.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Unknown BuildResultTrigger log level " + value + ", using " + Verbosity.NORMAL);
+            return Verbosity.NORMAL;
+        }
+    }
+
+    /**
+     * Logs a trigger decision, always written.
+     */
+    public void decision(String message) {
+        append(Verbosity.QUIET, message);
+    }
+
+    public void info(String message) {
+        append(Verbosity.NORMAL, message);
+    }
+
+    public void verbose(String message) {
+        append(Verbosity.VERBOSE, message);
+    }
+
+    public boolean isVerbose() {
+        return VERBOSITY == Verbosity.VERBOSE;
+    }
+
+    private void append(Verbosity verbosity, String message) {
+        if (verbosity.compareTo(VERBOSITY) > 0 || truncated) {
+            return;
+        }
+        if (buffer.length() + message.length() > MAX_SIZE) {
+            truncated = true;
+            message = "[Polling log truncated]";
+        }
+        if (buffer.length() > 0) {
+            buffer.append('\n');
+        }
+        buffer.append(message);
+    }
+
+    /**
+     * Writes the buffered lines to the polling log.
+     */
+    public void flush() {
+        if (buffer.length() > 0) {
+            log.info(buffer.toString());
+            buffer.setLength(0);
+        }
+    }
+}
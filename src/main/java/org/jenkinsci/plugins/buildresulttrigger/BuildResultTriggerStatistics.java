@@ -0,0 +1,238 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polling statistics of one trigger, kept in memory since the trigger was started.
+ */
+@ExportedBean
+public class BuildResultTriggerStatistics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Histogram contextFetch = new Histogram();
+
+    private final Histogram check = new Histogram();
+
+    private long polls;
+
+    private long lastPollTime;
+
+    private int lastJobsExamined;
+
+    private long jobsExamined;
+
+    private long matches;
+
+    private long triggersFired;
+
+    private long coalescedPolls;
+
+    /*
+    * CPU time and heap allocations of the polls, the context fetch of the current poll being pending until its check
+    */
+    private long pendingCpuNanos;
+
+    private long pendingAllocatedBytes;
+
+    private long lastPollCpuNanos;
+
+    private long lastPollAllocatedBytes;
+
+    private long totalCpuNanos;
+
+    private long totalAllocatedBytes;
+
+    /**
+     * @return the CPU time of the current thread in nanoseconds, 0 if it cannot be measured
+     */
+    static long currentThreadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * @return the bytes allocated on the heap by the current thread, 0 if they cannot be measured
+     */
+    static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return 0;
+    }
+
+    synchronized void recordContextFetch(long durationNanos, int nbJobs, long cpuNanos, long allocatedBytes) {
+        contextFetch.record(durationNanos);
+        lastJobsExamined = nbJobs;
+        jobsExamined += nbJobs;
+        pendingCpuNanos = cpuNanos;
+        pendingAllocatedBytes = allocatedBytes;
+    }
+
+    synchronized void recordMatch() {
+        matches++;
+    }
+
+    synchronized void recordCoalescedPoll() {
+        coalescedPolls++;
+    }
+
+    synchronized void recordCheck(long durationNanos, boolean fired, long cpuNanos, long allocatedBytes) {
+        check.record(durationNanos);
+        polls++;
+        lastPollCpuNanos = pendingCpuNanos + cpuNanos;
+        lastPollAllocatedBytes = pendingAllocatedBytes + allocatedBytes;
+        totalCpuNanos += lastPollCpuNanos;
+        totalAllocatedBytes += lastPollAllocatedBytes;
+        pendingCpuNanos = 0;
+        pendingAllocatedBytes = 0;
+        lastPollTime = System.currentTimeMillis();
+        if (fired) {
+            triggersFired++;
+        }
+    }
+
+    @Exported
+    public synchronized long getPolls() {
+        return polls;
+    }
+
+    /**
+     * @return the time of the last poll in milliseconds since the epoch, 0 if none
+     */
+    @Exported
+    public synchronized long getLastPollTime() {
+        return lastPollTime;
+    }
+
+    @Exported
+    public synchronized int getLastJobsExamined() {
+        return lastJobsExamined;
+    }
+
+    @Exported
+    public synchronized long getJobsExamined() {
+        return jobsExamined;
+    }
+
+    @Exported
+    public synchronized long getMatches() {
+        return matches;
+    }
+
+    @Exported
+    public synchronized long getTriggersFired() {
+        return triggersFired;
+    }
+
+    /**
+     * @return the number of polls requested while a poll was in progress, each folded into a single poll run after it
+     */
+    @Exported
+    public synchronized long getCoalescedPolls() {
+        return coalescedPolls;
+    }
+
+    /**
+     * @return the CPU time spent by the last poll in milliseconds, 0 if it cannot be measured
+     */
+    @Exported
+    public synchronized double getLastPollCpuMillis() {
+        return lastPollCpuNanos / 1e6;
+    }
+
+    @Exported
+    public synchronized double getMeanPollCpuMillis() {
+        return polls == 0 ? 0 : totalCpuNanos / (polls * 1e6);
+    }
+
+    /**
+     * @return the bytes allocated on the heap by the last poll, 0 if they cannot be measured
+     */
+    @Exported
+    public synchronized long getLastPollAllocatedBytes() {
+        return lastPollAllocatedBytes;
+    }
+
+    @Exported
+    public synchronized long getMeanPollAllocatedBytes() {
+        return polls == 0 ? 0 : totalAllocatedBytes / polls;
+    }
+
+    @Exported
+    public Histogram getContextFetch() {
+        return contextFetch;
+    }
+
+    @Exported
+    public Histogram getCheck() {
+        return check;
+    }
+
+    /**
+     * Duration histogram with fixed millisecond buckets.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static final class Histogram {
+
+        private static final long[] UPPER_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+        /*
+        * One count per upper bound, plus one for the durations above the last bound
+        */
+        private final long[] counts = new long[UPPER_BOUNDS_MILLIS.length + 1];
+
+        private long count;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        synchronized void record(long durationNanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+            int bucket = 0;
+            while (bucket < UPPER_BOUNDS_MILLIS.length && millis > UPPER_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            totalNanos += durationNanos;
+            maxNanos = Math.max(maxNanos, durationNanos);
+        }
+
+        @Exported
+        public synchronized long getCount() {
+            return count;
+        }
+
+        @Exported
+        public synchronized double getMeanMillis() {
+            return count == 0 ? 0 : totalNanos / (count * 1e6);
+        }
+
+        @Exported
+        public synchronized double getMaxMillis() {
+            return maxNanos / 1e6;
+        }
+
+        @Exported
+        public long[] getUpperBoundsMillis() {
+            return UPPER_BOUNDS_MILLIS.clone();
+        }
+
+        /**
+         * @return the number of durations per bucket, the last one counting the durations above the last upper bound
+         */
+        @Exported
+        public synchronized long[] getCounts() {
+            return counts.clone();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+/**
+ * Per monitored job statistics of the result checks of a trigger, used to order the checks so that
+ * a decision short-circuiting on the first match (or the first mismatch) is reached with the fewest checks.
+ * <p>
+ * The order only affects which job is checked first, never the decision itself.
+ */
+final class EvaluationOrder {
+
+    private final long[] evaluations;
+
+    private final long[] matches;
+
+    /*
+    * Smoothed cost of a check in nanoseconds, 0 until measured
+    */
+    private final long[] costs;
+
+    EvaluationOrder(int size) {
+        evaluations = new long[size];
+        matches = new long[size];
+        costs = new long[size];
+    }
+
+    synchronized void record(int index, boolean matched, long nanos) {
+        evaluations[index]++;
+        if (matched) {
+            matches[index]++;
+        }
+        // Exponentially weighted, recent checks count for a quarter
+        costs[index] = costs[index] == 0 ? Math.max(1, nanos) : (3 * costs[index] + Math.max(1, nanos)) / 4;
+    }
+
+    /**
+     * Orders the given job indexes in place.
+     *
+     * @param indexes     the job indexes to check
+     * @param count       the number of indexes to order
+     * @param stopOnMatch true if the decision is reached on the first match, false if on the first mismatch
+     */
+    synchronized void sort(int[] indexes, int count, boolean stopOnMatch) {
+        if (count < 2) {
+            return;
+        }
+        // Jobs not checked yet are assumed to cost the average of the others
+        long totalCost = 0;
+        int measured = 0;
+        for (int i = 0; i < count; i++) {
+            if (costs[indexes[i]] > 0) {
+                totalCost += costs[indexes[i]];
+                measured++;
+            }
+        }
+        double defaultCost = measured == 0 ? 1.0 : (double) totalCost / measured;
+        double[] scores = new double[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = score(indexes[i], stopOnMatch, defaultCost);
+        }
+        // Few jobs are checked per poll: an insertion sort is enough, and keeps ties in configuration order
+        for (int i = 1; i < count; i++) {
+            int index = indexes[i];
+            double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                indexes[j + 1] = indexes[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            indexes[j + 1] = index;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * @return the probability of the check deciding, per unit of cost
+     */
+    private double score(int index, boolean stopOnMatch, double defaultCost) {
+        // Laplace smoothing, unknown jobs start at one chance in two
+        double matchRate = (matches[index] + 1.0) / (evaluations[index] + 2.0);
+        double decisive = stopOnMatch ? matchRate : 1.0 - matchRate;
+        return decisive / (costs[index] == 0 ? defaultCost : costs[index]);
+    }
+}
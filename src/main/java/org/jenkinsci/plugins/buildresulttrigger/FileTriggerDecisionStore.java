@@ -0,0 +1,146 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.Extension;
+import hudson.Util;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * File based {@link TriggerDecisionStore}: one file per triggered job under {@code JENKINS_HOME/buildresult-trigger/decisions},
+ * holding the keys of its last decisions, read and written under an exclusive {@link FileLock}.
+ * The file lock serializes the controllers sharing the directory, a monitor the threads of this one,
+ * since a file lock is held on behalf of the whole JVM.
+ * <p>
+ * Disabled unless {@code org.jenkinsci.plugins.buildresulttrigger.FileTriggerDecisionStore.enabled} is true,
+ * since a single controller does not need it. The last {@code org.jenkinsci.plugins.buildresulttrigger.FileTriggerDecisionStore.retention} decisions (1000 by default)
+ * are kept per job.
+ */
+@Extension(ordinal = -100)
+public class FileTriggerDecisionStore extends TriggerDecisionStore {
+
+    static final boolean ENABLED = SystemProperties.getBoolean(FileTriggerDecisionStore.class.getName() + ".enabled");
+
+    static final int RETENTION = SystemProperties.getInteger(FileTriggerDecisionStore.class.getName() + ".retention", 1000);
+
+    /*
+    * Decision file -> monitor of the threads of this JVM, shared by all the instances
+    */
+    private static final ConcurrentMap<File, Object> MONITORS = new ConcurrentHashMap<File, Object>();
+
+    private File directory;
+
+    public FileTriggerDecisionStore() {
+    }
+
+    /**
+     * Store in the given directory, for instance to share it between test JVMs.
+     */
+    public FileTriggerDecisionStore(File directory) {
+        this.directory = directory;
+    }
+
+    private synchronized File getDirectory() {
+        if (directory == null) {
+            directory = new File(Jenkins.get().getRootDir(), "buildresult-trigger/decisions");
+        }
+        return directory;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    private File getFile(String jobFullName) {
+        return new File(getDirectory(), Util.getDigestOf(jobFullName) + ".log");
+    }
+
+    @Override
+    public boolean isRecorded(String jobFullName, Collection<String> upstreamBuilds) throws IOException {
+        File file = getFile(jobFullName);
+        if (!file.exists()) {
+            return false;
+        }
+        String key = toKey(upstreamBuilds);
+        synchronized (MONITORS.computeIfAbsent(file, k -> new Object())) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                 FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+                return read(channel).contains(key);
+            }
+        }
+    }
+
+    @Override
+    public boolean record(String jobFullName, Collection<String> upstreamBuilds) throws IOException {
+        File file = getFile(jobFullName);
+        String key = toKey(upstreamBuilds);
+        Object monitor = MONITORS.computeIfAbsent(file, k -> new Object());
+        synchronized (monitor) {
+            File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                throw new IOException("Failed to create " + parent);
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                List<String> keys = read(channel);
+                if (keys.contains(key)) {
+                    return false;
+                }
+                keys.add(key);
+                if (keys.size() > 2 * RETENTION) {
+                    // Rewritten now and then only, appended otherwise
+                    write(channel, keys.subList(keys.size() - RETENTION, keys.size()));
+                } else {
+                    channel.write(ByteBuffer.wrap((key + "\n").getBytes(StandardCharsets.UTF_8)), channel.size());
+                }
+                channel.force(false);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return a key independent of the order of the given builds
+     */
+    private static String toKey(Collection<String> upstreamBuilds) {
+        return String.join("|", new TreeSet<String>(upstreamBuilds)).replace('\n', ' ');
+    }
+
+    private static List<String> read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // reads the whole file
+        }
+        String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        List<String> keys = new ArrayList<String>();
+        for (String line : content.split("\n")) {
+            if (!line.isEmpty()) {
+                keys.add(line);
+            }
+        }
+        return keys;
+    }
+
+    private static void write(FileChannel channel, List<String> keys) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (String key : keys) {
+            content.append(key).append('\n');
+        }
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)), 0);
+    }
+}
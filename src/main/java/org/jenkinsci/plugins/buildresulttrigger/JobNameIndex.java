@@ -0,0 +1,229 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.Job;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controller-wide index of the full names of all the jobs, loaded once at startup and then kept
+ * up to date from item creations, deletions and moves, so that the job selectors never walk the item tree.
+ * <p>
+ * Names are also indexed by their lower case trigrams, so that the configuration form can suggest
+ * and validate job names without walking the item tree either.
+ */
+public final class JobNameIndex {
+
+    private static final JobNameIndex INSTANCE = new JobNameIndex();
+
+    private final NavigableSet<String> names = new ConcurrentSkipListSet<String>();
+
+    /*
+    * Incremented on every change of the indexed names
+    */
+    private final AtomicLong generation = new AtomicLong();
+
+    /*
+    * Lower case trigram -> job full names containing it
+    */
+    private final ConcurrentMap<String, Set<String>> trigrams = new ConcurrentHashMap<String, Set<String>>();
+
+    /*
+    * Maximum number of distinct names compared when looking for similar ones
+    */
+    static final int MAX_SIMILAR_SCANNED = 1000;
+
+    JobNameIndex() {
+    }
+
+    public static JobNameIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Rebuilds the index from the item tree, once all the items are loaded.
+     */
+    void reload() {
+        names.clear();
+        trigrams.clear();
+        for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+            add(job.getFullName());
+        }
+        generation.incrementAndGet();
+    }
+
+    void add(String fullName) {
+        if (names.add(fullName)) {
+            for (String trigram : trigramsOf(fullName)) {
+                // Atomic per trigram, so that a concurrent removal never drops a set that is being added to
+                trigrams.compute(trigram, (k, containing) -> {
+                    Set<String> result = containing != null ? containing : ConcurrentHashMap.<String>newKeySet();
+                    result.add(fullName);
+                    return result;
+                });
+            }
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the given job name and the names of the jobs below it, if it is a folder.
+     */
+    void remove(String fullName) {
+        List<String> removed = new ArrayList<String>(names.subSet(fullName + "/", fullName + "0"));
+        if (names.contains(fullName)) {
+            removed.add(fullName);
+        }
+        for (String name : removed) {
+            if (names.remove(name)) {
+                for (String trigram : trigramsOf(name)) {
+                    // Drops the sets left empty, so that renames do not grow the map forever
+                    trigrams.computeIfPresent(trigram, (k, containing) -> {
+                        containing.remove(name);
+                        return containing.isEmpty() ? null : containing;
+                    });
+                }
+            }
+        }
+        if (!removed.isEmpty()) {
+            generation.incrementAndGet();
+        }
+    }
+
+    private static Set<String> trigramsOf(String name) {
+        String lowerCase = name.toLowerCase(Locale.ENGLISH);
+        Set<String> result = new HashSet<String>();
+        for (int i = 0; i + 3 <= lowerCase.length(); i++) {
+            result.add(lowerCase.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * @return the indexed names starting with the given prefix, sorted, at most limit of them
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<String>();
+        for (String name : names.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(name);
+        }
+        return result;
+    }
+
+    /**
+     * @return the indexed names containing the given text of at least 3 characters, ignoring case, sorted,
+     * at most limit of them
+     */
+    public List<String> findContaining(String text, int limit) {
+        String lowerCase = text.toLowerCase(Locale.ENGLISH);
+        if (lowerCase.length() < 3 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Intersects the names of the rarest trigrams first
+        List<Set<String>> candidates = new ArrayList<Set<String>>();
+        for (String trigram : trigramsOf(lowerCase)) {
+            Set<String> containing = trigrams.get(trigram);
+            if (containing == null || containing.isEmpty()) {
+                return Collections.emptyList();
+            }
+            candidates.add(containing);
+        }
+        candidates.sort(Comparator.comparingInt(Set::size));
+        // Only keeps the first names in order while collecting
+        TreeSet<String> result = new TreeSet<String>();
+        for (String name : candidates.get(0)) {
+            if ((result.size() < limit || name.compareTo(result.last()) < 0)
+                    && name.toLowerCase(Locale.ENGLISH).contains(lowerCase)) {
+                result.add(name);
+                if (result.size() > limit) {
+                    result.pollLast();
+                }
+            }
+        }
+        return new ArrayList<String>(result);
+    }
+
+    /**
+     * @return the indexed names sharing the most trigrams with the given name, best first, at most limit of them
+     */
+    public List<String> findSimilar(String name, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Visits the rarest trigrams first, and stops taking new names in once enough of them are compared:
+        // the names sharing the most common trigrams only are the least similar anyway
+        List<Set<String>> candidates = new ArrayList<Set<String>>();
+        for (String trigram : trigramsOf(name)) {
+            Set<String> containing = trigrams.get(trigram);
+            if (containing != null) {
+                candidates.add(containing);
+            }
+        }
+        candidates.sort(Comparator.comparingInt(Set::size));
+        Map<String, Integer> shared = new HashMap<String, Integer>();
+        for (Set<String> containing : candidates) {
+            for (String candidate : containing) {
+                if (shared.size() < MAX_SIMILAR_SCANNED) {
+                    shared.merge(candidate, 1, Integer::sum);
+                } else {
+                    shared.computeIfPresent(candidate, (k, count) -> count + 1);
+                }
+            }
+        }
+
+        // Keeps the best ones only, the worst of them at the head
+        Comparator<Map.Entry<String, Integer>> bySharedCount = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<String, Integer>> best = new PriorityQueue<Map.Entry<String, Integer>>(limit + 1, bySharedCount);
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            best.add(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(best);
+        entries.sort(bySharedCount.reversed());
+        List<String> result = new ArrayList<String>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    public boolean contains(String fullName) {
+        return names.contains(fullName);
+    }
+
+    /**
+     * @return the indexed job full names, sorted
+     */
+    public Collection<String> getNames() {
+        return Collections.unmodifiableSet(names);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    int getTrigramCount() {
+        return trigrams.size();
+    }
+}
@@ -0,0 +1,111 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+import jenkins.util.Timer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the trigger decisions, so that a decision for given monitored builds is taken only once,
+ * even by several controllers sharing the same {@code JENKINS_HOME} one after the other.
+ * <p>
+ * A poll checks the store before triggering a build, and the decision is recorded once the build is scheduled,
+ * so that a build that could not be scheduled is not taken as triggered by the other controllers.
+ * <p>
+ * The enabled implementation with the highest ordinal is used. {@link FileTriggerDecisionStore} is only enabled on demand,
+ * no decision is recorded otherwise.
+ */
+public abstract class TriggerDecisionStore implements ExtensionPoint {
+
+    private static final Logger LOGGER = Logger.getLogger(TriggerDecisionStore.class.getName());
+
+    /**
+     * @param jobFullName    the full name of the triggered job
+     * @param upstreamBuilds the keys of the monitored builds the decision is taken for
+     * @return true if a decision to trigger the job for the given monitored builds has been recorded
+     * @throws IOException if the decisions could not be read
+     */
+    public abstract boolean isRecorded(String jobFullName, Collection<String> upstreamBuilds) throws IOException;
+
+    /**
+     * Records the decision to trigger a job for the given monitored builds, unless it is already recorded.
+     *
+     * @param jobFullName    the full name of the triggered job
+     * @param upstreamBuilds the keys of the monitored builds the decision is taken for, identifying a build even across
+     *                       recreated jobs and reset build numbers
+     * @return true if the decision was recorded by this call, false if it had already been recorded
+     * @throws IOException if the decision could not be recorded
+     */
+    public abstract boolean record(String jobFullName, Collection<String> upstreamBuilds) throws IOException;
+
+    /**
+     * @return true if the decisions are recorded by this store
+     */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return the store recording the decisions, null if none is enabled
+     */
+    public static TriggerDecisionStore get() {
+        for (TriggerDecisionStore store : ExtensionList.lookup(TriggerDecisionStore.class)) {
+            if (store.isEnabled()) {
+                return store;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records the decisions carried by the given cause, once a build of the given job has been scheduled with it.
+     * The store is written outside of the calling thread, which may hold the queue lock.
+     */
+    static void recordScheduled(Job<?, ?> job, BuildResultTriggerCause cause) {
+        final List<List<String>> decisions = cause.takeDecisions();
+        final TriggerDecisionStore store = get();
+        if (decisions.isEmpty() || store == null) {
+            return;
+        }
+        final String jobFullName = job.getFullName();
+        Timer.get().submit(() -> {
+            for (List<String> keys : decisions) {
+                try {
+                    if (!store.record(jobFullName, keys)) {
+                        LOGGER.log(Level.FINE, "The trigger decision of {0} for {1} has been recorded meanwhile", new Object[]{jobFullName, keys});
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to record the trigger decision of " + jobFullName, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the decisions of the builds scheduled by the polls through the xtrigger base class.
+     */
+    @Extension
+    public static class QueueListenerImpl extends QueueListener {
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem wi) {
+            if (!(wi.task instanceof Job)) {
+                return;
+            }
+            for (Cause cause : wi.getCauses()) {
+                if (cause instanceof BuildResultTriggerCause) {
+                    recordScheduled((Job<?, ?>) wi.task, (BuildResultTriggerCause) cause);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-wide graph of the monitored jobs (upstream) and the jobs they trigger (downstream),
+ * updated along with {@link BuildResultTriggerIndex} when triggers are registered and unregistered.
+ * <p>
+ * A registration creating a cycle is logged right away. The cycles and the upstream jobs triggering
+ * more than {@link #FAN_OUT_THRESHOLD} jobs are computed from the graph only, once per change.
+ */
+public final class TriggerGraph {
+
+    private static final Logger LOGGER = Logger.getLogger(TriggerGraph.class.getName());
+
+    /**
+     * Number of downstream jobs from which an upstream job is reported as a fan-out hotspot.
+     */
+    static final int FAN_OUT_THRESHOLD = SystemProperties.getInteger(TriggerGraph.class.getName() + ".fanOutThreshold", 20);
+
+    private static final TriggerGraph INSTANCE = new TriggerGraph();
+
+    /*
+    * Downstream job full name -> monitored job full names
+    */
+    private final Map<String, Set<String>> upstreams = new HashMap<String, Set<String>>();
+
+    /*
+    * Monitored job full name -> downstream job full names
+    */
+    private final Map<String, Set<String>> downstreams = new HashMap<String, Set<String>>();
+
+    private long version;
+
+    private Report report;
+
+    private TriggerGraph() {
+    }
+
+    public static TriggerGraph get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Replaces the monitored jobs of the given downstream job.
+     */
+    synchronized void update(String downstream, Set<String> monitored) {
+        remove(downstream);
+        if (monitored.isEmpty()) {
+            return;
+        }
+        Set<String> names = new HashSet<String>(monitored);
+        upstreams.put(downstream, names);
+        for (String upstream : names) {
+            downstreams.computeIfAbsent(upstream, k -> new HashSet<String>()).add(downstream);
+        }
+        List<String> cycle = findPath(downstream, names);
+        if (cycle != null) {
+            LOGGER.log(Level.WARNING, "Build result triggers form a cycle: {0}", String.join(" -> ", cycle));
+        }
+    }
+
+    synchronized void remove(String downstream) {
+        version++;
+        Set<String> names = upstreams.remove(downstream);
+        if (names == null) {
+            return;
+        }
+        for (String upstream : names) {
+            Set<String> jobs = downstreams.get(upstream);
+            if (jobs != null) {
+                jobs.remove(downstream);
+                if (jobs.isEmpty()) {
+                    downstreams.remove(upstream);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the path from the given job to itself through one of the given monitored jobs, null if there is none
+     */
+    private List<String> findPath(String from, Set<String> targets) {
+        Map<String, String> parents = new HashMap<String, String>();
+        Deque<String> queue = new ArrayDeque<String>();
+        queue.add(from);
+        parents.put(from, null);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (targets.contains(current)) {
+                List<String> path = new ArrayList<String>();
+                for (String name = current; name != null; name = parents.get(name)) {
+                    path.add(0, name);
+                }
+                path.add(from);
+                return path;
+            }
+            for (String next : downstreams.getOrDefault(current, Collections.<String>emptySet())) {
+                if (!parents.containsKey(next)) {
+                    parents.put(next, current);
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the monitored jobs of the given downstream job, never null
+     */
+    public synchronized Set<String> getUpstreams(String downstream) {
+        Set<String> names = upstreams.get(downstream);
+        return names == null ? Collections.<String>emptySet() : new TreeSet<String>(names);
+    }
+
+    /**
+     * @return the jobs triggered by the given monitored job, never null
+     */
+    public synchronized Set<String> getDownstreams(String upstream) {
+        Set<String> names = downstreams.get(upstream);
+        return names == null ? Collections.<String>emptySet() : new TreeSet<String>(names);
+    }
+
+    /**
+     * @return the cycles and fan-out hotspots of the current graph, computed once per change
+     */
+    public synchronized Report getReport() {
+        if (report == null || report.version != version) {
+            report = new Report(version, findCycles(), findHotspots());
+        }
+        return report;
+    }
+
+    /**
+     * Strongly connected components of more than one job, or of a job triggering itself (Tarjan).
+     */
+    private List<List<String>> findCycles() {
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        Map<String, Integer> lowLinks = new HashMap<String, Integer>();
+        Deque<String> stack = new ArrayDeque<String>();
+        Set<String> onStack = new HashSet<String>();
+        List<List<String>> cycles = new ArrayList<List<String>>();
+        for (String node : downstreams.keySet()) {
+            if (!indexes.containsKey(node)) {
+                connect(node, indexes, lowLinks, stack, onStack, cycles);
+            }
+        }
+        return cycles;
+    }
+
+    private void connect(String root, Map<String, Integer> indexes, Map<String, Integer> lowLinks,
+                         Deque<String> stack, Set<String> onStack, List<List<String>> cycles) {
+        // Iterative, deep trigger chains must not overflow the stack
+        Deque<Frame> frames = new ArrayDeque<Frame>();
+        frames.push(visit(root, indexes, lowLinks, stack, onStack));
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            String node = frame.node;
+            if (frame.successors.hasNext()) {
+                String next = frame.successors.next();
+                if (!indexes.containsKey(next)) {
+                    frames.push(visit(next, indexes, lowLinks, stack, onStack));
+                } else if (onStack.contains(next)) {
+                    lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(next)));
+                }
+                continue;
+            }
+            frames.pop();
+            if (!frames.isEmpty()) {
+                String parent = frames.peek().node;
+                lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(node)));
+            }
+            if (lowLinks.get(node).equals(indexes.get(node))) {
+                List<String> component = new ArrayList<String>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(node));
+                if (component.size() > 1 || downstreams.getOrDefault(node, Collections.<String>emptySet()).contains(node)) {
+                    Collections.sort(component);
+                    cycles.add(component);
+                }
+            }
+        }
+    }
+
+    private Frame visit(String node, Map<String, Integer> indexes, Map<String, Integer> lowLinks,
+                        Deque<String> stack, Set<String> onStack) {
+        int index = indexes.size();
+        indexes.put(node, index);
+        lowLinks.put(node, index);
+        stack.push(node);
+        onStack.add(node);
+        return new Frame(node, new ArrayList<String>(downstreams.getOrDefault(node, Collections.<String>emptySet())).iterator());
+    }
+
+    /**
+     * Job being visited by the cycle search, with its remaining downstream jobs.
+     */
+    private static final class Frame {
+
+        private final String node;
+
+        private final Iterator<String> successors;
+
+        private Frame(String node, Iterator<String> successors) {
+            this.node = node;
+            this.successors = successors;
+        }
+    }
+
+    private Map<String, Integer> findHotspots() {
+        List<Map.Entry<String, Set<String>>> entries = new ArrayList<Map.Entry<String, Set<String>>>();
+        for (Map.Entry<String, Set<String>> entry : downstreams.entrySet()) {
+            if (entry.getValue().size() >= FAN_OUT_THRESHOLD) {
+                entries.add(entry);
+            }
+        }
+        entries.sort((a, b) -> b.getValue().size() - a.getValue().size());
+        Map<String, Integer> hotspots = new LinkedHashMap<String, Integer>();
+        for (Map.Entry<String, Set<String>> entry : entries) {
+            hotspots.put(entry.getKey(), entry.getValue().size());
+        }
+        return hotspots;
+    }
+
+    /**
+     * Cycles and fan-out hotspots of a version of the graph.
+     */
+    public static final class Report {
+
+        private final long version;
+
+        private final List<List<String>> cycles;
+
+        private final Map<String, Integer> hotspots;
+
+        private Report(long version, List<List<String>> cycles, Map<String, Integer> hotspots) {
+            this.version = version;
+            this.cycles = Collections.unmodifiableList(cycles);
+            this.hotspots = Collections.unmodifiableMap(hotspots);
+        }
+
+        /**
+         * @return the groups of jobs triggering each other, each sorted by name
+         */
+        public List<List<String>> getCycles() {
+            return cycles;
+        }
+
+        /**
+         * @return the upstream jobs with at least {@link #FAN_OUT_THRESHOLD} downstream jobs, by decreasing fan-out
+         */
+        public Map<String, Integer> getHotspots() {
+            return hotspots;
+        }
+    }
+}
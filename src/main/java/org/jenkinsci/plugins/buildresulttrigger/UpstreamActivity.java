@@ -0,0 +1,94 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Controller-wide record of the build completions of the monitored jobs, fed by the run listener.
+ * Used to tell whether a monitored job may have changed since a given time and how often it changes.
+ */
+public final class UpstreamActivity {
+
+    private static final UpstreamActivity INSTANCE = new UpstreamActivity();
+
+    /*
+    * Job full name -> completion record
+    */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private UpstreamActivity() {
+    }
+
+    public static UpstreamActivity get() {
+        return INSTANCE;
+    }
+
+    void recordCompletion(String fullName, long time) {
+        entries.computeIfAbsent(fullName, k -> new Entry()).record(time);
+    }
+
+    void remove(String fullName) {
+        entries.remove(fullName);
+    }
+
+    /**
+     * @return the time of the last recorded completion of the given job, 0 if none since startup
+     */
+    public long getLastCompletion(String fullName) {
+        Entry entry = entries.get(fullName);
+        return entry == null ? 0 : entry.getLastCompletion();
+    }
+
+    /**
+     * @return true if one of the given jobs completed a build after the given time
+     */
+    public boolean hasCompletionSince(Collection<String> fullNames, long time) {
+        for (String fullName : fullNames) {
+            if (getLastCompletion(fullName) > time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the shortest smoothed interval between two completions of one of the given jobs in milliseconds,
+     * 0 if unknown for all of them
+     */
+    public long getShortestMeanInterval(Collection<String> fullNames) {
+        long shortest = 0;
+        for (String fullName : fullNames) {
+            Entry entry = entries.get(fullName);
+            long interval = entry == null ? 0 : entry.getMeanInterval();
+            if (interval > 0 && (shortest == 0 || interval < shortest)) {
+                shortest = interval;
+            }
+        }
+        return shortest;
+    }
+
+    private static final class Entry {
+
+        private long lastCompletion;
+
+        private long meanInterval;
+
+        synchronized void record(long time) {
+            if (lastCompletion > 0 && time > lastCompletion) {
+                long interval = time - lastCompletion;
+                // Exponentially weighted, recent intervals count for a quarter
+                meanInterval = meanInterval == 0 ? interval : (3 * meanInterval + interval) / 4;
+            }
+            lastCompletion = Math.max(lastCompletion, time);
+        }
+
+        synchronized long getLastCompletion() {
+            return lastCompletion;
+        }
+
+        synchronized long getMeanInterval() {
+            return meanInterval;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.util.SystemProperties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Controller-wide snapshot of the last completed build of the monitored jobs, shared by all the triggers.
+ * <p>
+ * Snapshots are kept for a time window set by the
+ * {@code org.jenkinsci.plugins.buildresulttrigger.UpstreamSnapshotCache.window} system property (in milliseconds,
+ * 0 disables the cache), so triggers polling in the same window look each monitored job up only once.
+ * Completed builds invalidate the snapshot of their job right away.
+ */
+public final class UpstreamSnapshotCache {
+
+    static final long WINDOW = SystemProperties.getLong(UpstreamSnapshotCache.class.getName() + ".window", 5000L);
+
+    private static final UpstreamSnapshotCache INSTANCE = new UpstreamSnapshotCache();
+
+    /*
+    * Job full name -> last snapshot, or invalidation marker
+    */
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+
+    private UpstreamSnapshotCache() {
+    }
+
+    public static UpstreamSnapshotCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the snapshot of the last completed build of the given job, taken in the current time window
+     */
+    public Snapshot getSnapshot(Job<?, ?> job) {
+        if (WINDOW <= 0) {
+            return Snapshot.capture(job, 0);
+        }
+
+        long bucket = System.currentTimeMillis() / WINDOW;
+        String fullName = job.getFullName();
+        Snapshot snapshot = snapshots.get(fullName);
+        if (snapshot != null && !snapshot.isInvalidation() && snapshot.bucket == bucket) {
+            return snapshot;
+        }
+
+        final Snapshot fresh = Snapshot.capture(job, bucket);
+        // A snapshot captured before the last invalidation must not replace it
+        snapshots.compute(fullName, (k, old) -> old == null || old.capturedAt <= fresh.capturedAt ? fresh : old);
+        return fresh;
+    }
+
+    /**
+     * Drops the snapshot of the given job, for instance when one of its builds completes.
+     */
+    public void invalidate(String fullName) {
+        snapshots.put(fullName, Snapshot.invalidation());
+    }
+
+    public void remove(String fullName) {
+        snapshots.remove(fullName);
+    }
+
+    /**
+     * Build number and result of the last completed build of a job.
+     */
+    public static final class Snapshot {
+
+        private final long bucket;
+
+        private final long capturedAt;
+
+        private final int buildNumber;
+
+        private final int resultOrdinal;
+
+        private final long startTime;
+
+        private Snapshot(long bucket, long capturedAt, int buildNumber, int resultOrdinal, long startTime) {
+            this.bucket = bucket;
+            this.capturedAt = capturedAt;
+            this.buildNumber = buildNumber;
+            this.resultOrdinal = resultOrdinal;
+            this.startTime = startTime;
+        }
+
+        static Snapshot capture(Job<?, ?> job, long bucket) {
+            long capturedAt = System.nanoTime();
+            Run<?, ?> lastBuild = job.getLastCompletedBuild();
+            if (lastBuild == null) {
+                return new Snapshot(bucket, capturedAt, BuildResultTriggerContext.NO_BUILD, BuildResultTriggerContext.NO_RESULT, 0);
+            }
+            Result result = lastBuild.getResult();
+            return new Snapshot(bucket, capturedAt, lastBuild.getNumber(),
+                    result != null ? result.ordinal : BuildResultTriggerContext.NO_RESULT, lastBuild.getStartTimeInMillis());
+        }
+
+        static Snapshot invalidation() {
+            return new Snapshot(-1, System.nanoTime(), BuildResultTriggerContext.NO_BUILD, BuildResultTriggerContext.NO_RESULT, 0);
+        }
+
+        private boolean isInvalidation() {
+            return bucket < 0;
+        }
+
+        /**
+         * @return the number of the last completed build, {@link BuildResultTriggerContext#NO_BUILD} if there is none
+         */
+        public int getBuildNumber() {
+            return buildNumber;
+        }
+
+        /**
+         * @return the result ordinal of the last completed build, {@link BuildResultTriggerContext#NO_RESULT} if unknown
+         */
+        public int getResultOrdinal() {
+            return resultOrdinal;
+        }
+
+        /**
+         * @return the start time of the last completed build in milliseconds since the epoch, 0 if there is none
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+    }
+}
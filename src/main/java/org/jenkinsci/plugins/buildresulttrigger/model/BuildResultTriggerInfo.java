@@ -3,9 +3,12 @@ package org.jenkinsci.plugins.buildresulttrigger.model;
 import hudson.Extension;
 import hudson.Util;
 import hudson.model.*;
+import hudson.util.EditDistance;
 import hudson.util.FormValidation;
 import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.buildresulttrigger.JobNameIndex;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
@@ -13,7 +16,14 @@ import org.kohsuke.stapler.QueryParameter;
 import com.google.common.base.Optional;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * @author Gregory Boissinot
@@ -24,6 +34,8 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
 	 */
 	private static final long serialVersionUID = 5200528635213141189L;
 
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerInfo.class.getName());
+
 	@Deprecated
     private transient String jobName;
 
@@ -31,6 +43,21 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
 
     private final CheckedResult[] checkedResults;
 
+    /*
+    * Parsed job names, computed once from jobNames
+    */
+    private transient volatile String[] jobNamesArray;
+
+    /*
+    * Compiled job name patterns, computed once from jobNames
+    */
+    private transient volatile JobSelector[] selectors;
+
+    /*
+    * Compiled checked results, computed once from checkedResults
+    */
+    private transient volatile ResultPredicate[] predicates;
+
     @DataBoundConstructor
     public BuildResultTriggerInfo(String jobNames, CheckedResult[] checkedResults) {
         this.jobNames = jobNames;
@@ -53,6 +80,37 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
     }
 
     public String[] getJobNamesAsArray() {
+        String[] projects = jobNamesArray;
+        if (projects == null) {
+            projects = parseJobNames();
+            jobNamesArray = projects;
+        }
+        return projects.clone();
+    }
+
+    /**
+     * @return the compiled job name patterns of this entry, invalid ones are left out
+     */
+    public JobSelector[] getSelectors() {
+        JobSelector[] compiled = selectors;
+        if (compiled == null) {
+            List<JobSelector> list = new ArrayList<JobSelector>();
+            for (String name : getJobNamesAsArray()) {
+                if (JobSelector.isPattern(name)) {
+                    try {
+                        list.add(JobSelector.compile(name));
+                    } catch (PatternSyntaxException e) {
+                        LOGGER.log(Level.WARNING, "Ignoring invalid job name pattern " + name, e);
+                    }
+                }
+            }
+            compiled = list.toArray(new JobSelector[0]);
+            selectors = compiled;
+        }
+        return compiled.clone();
+    }
+
+    private String[] parseJobNames() {
 
         if (StringUtils.isBlank(jobNames)) {
             return new String[0];
@@ -75,6 +133,21 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
         return checkedResults.clone();
     }
 
+    /**
+     * @return the checked results of this entry, compiled once
+     */
+    public ResultPredicate[] getPredicates() {
+        ResultPredicate[] compiled = predicates;
+        if (compiled == null) {
+            compiled = new ResultPredicate[checkedResults.length];
+            for (int i = 0; i < checkedResults.length; i++) {
+                compiled[i] = ResultPredicate.compile(checkedResults[i]);
+            }
+            predicates = compiled;
+        }
+        return compiled.clone();
+    }
+
 
     public boolean onJobRenamed(String fullOldName, String fullNewName) {
         // quick test
@@ -102,6 +175,8 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
                 b.append(p);
             }
             jobNames = b.toString();
+            jobNamesArray = null;
+            selectors = null;
         }
 
         return changed;
@@ -115,14 +190,66 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
     }
 
     @Extension
+    @Symbol("jobInfo")
     public static class DescriptorImpl extends Descriptor<BuildResultTriggerInfo> {
         @Override
         public String getDisplayName() {
             return "Job to monitor";
         }
 
+        /*
+        * Maximum number of job names suggested or compared
+        */
+        private static final int MAX_CANDIDATES = 20;
+
         public AutoCompletionCandidates doAutoCompleteJobNames(@QueryParameter String value, @AncestorInPath Item self, @AncestorInPath ItemGroup container) {
-            return AutoCompletionCandidates.ofJobNames(Job.class, value, self, container);
+            AutoCompletionCandidates candidates = new AutoCompletionCandidates();
+            String query = Util.fixNull(value).trim();
+            if (query.isEmpty()) {
+                return candidates;
+            }
+            if (container == null) {
+                container = Jenkins.get();
+            }
+
+            // Jobs next to the configured one first, then by full name, then containing the text
+            Set<String> names = new LinkedHashSet<String>();
+            if (!container.getFullName().isEmpty()) {
+                names.addAll(JobNameIndex.get().findByPrefix(container.getFullName() + "/" + query, MAX_CANDIDATES));
+            }
+            names.addAll(JobNameIndex.get().findByPrefix(StringUtils.removeStart(query, "/"), MAX_CANDIDATES));
+            names.addAll(JobNameIndex.get().findContaining(query, MAX_CANDIDATES));
+
+            int count = 0;
+            for (String name : names) {
+                if (count >= MAX_CANDIDATES) {
+                    break;
+                }
+                // Only resolves the jobs the current user can see
+                Job<?, ?> job = Jenkins.get().getItemByFullName(name, Job.class);
+                if (job != null && job != self) {
+                    candidates.add(job.getRelativeNameFrom(container));
+                    count++;
+                }
+            }
+            return candidates;
+        }
+
+        /**
+         * @return the visible job with the closest name to the given one, null if none
+         */
+        private static Job<?, ?> findNearest(String name, Item project) {
+            List<String> names = new ArrayList<String>();
+            for (String candidate : JobNameIndex.get().findSimilar(name, MAX_CANDIDATES)) {
+                if (Jenkins.get().getItemByFullName(candidate, Job.class) != null) {
+                    names.add(candidate);
+                }
+            }
+            if (names.isEmpty()) {
+                return null;
+            }
+            String canonicalName = Items.getCanonicalName(project.getParent(), name);
+            return Jenkins.get().getItemByFullName(EditDistance.findNearest(canonicalName, names), Job.class);
         }
 
         public FormValidation doCheckJobNames(@AncestorInPath Item project, @QueryParameter String value) {
@@ -133,14 +260,26 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
 
             StringTokenizer tokens = new StringTokenizer(Util.fixNull(value), ",");
             boolean hasProjects = false;	
+            FormValidation warning = null;
             while (tokens.hasMoreTokens()) {
                 String projectName = tokens.nextToken().trim();
-                if (StringUtils.isNotBlank(projectName)) {
+                if (StringUtils.isNotBlank(projectName) && JobSelector.isPattern(projectName)) {
+                    JobSelector selector;
+                    try {
+                        selector = JobSelector.compile(projectName);
+                    } catch (PatternSyntaxException e) {
+                        return FormValidation.error(Messages.BuildTrigger_InvalidPattern(projectName, e.getDescription()));
+                    }
+                    if (selector.matches(project.getFullName())) {
+                        warning = FormValidation.warning(Messages.BuildTrigger_PatternMatchesItself(projectName));
+                    }
+                    hasProjects = true;
+                } else if (StringUtils.isNotBlank(projectName)) {
                     Item item = Jenkins.get().getItem(projectName, project, Item.class);
                     if (item == null) {
-                    	AbstractProject ap = AbstractProject.findNearest(projectName, project.getParent()) ;
-                    	if( ap != null ) {
-                    		return FormValidation.error(Messages.BuildTrigger_NoSuchProject(projectName,ap.getRelativeNameFrom(project)));
+                    	Job<?, ?> nearest = findNearest(projectName, project) ;
+                    	if( nearest != null ) {
+                    		return FormValidation.error(Messages.BuildTrigger_NoSuchProject(projectName,nearest.getRelativeNameFrom(project)));
                     	} else {
                     		return FormValidation.error(Messages.BuildTrigger_ProjectNotFound(projectName)) ;
                     	}
@@ -155,7 +294,7 @@ public class BuildResultTriggerInfo extends AbstractDescribableImpl<BuildResultT
                 return FormValidation.error(Messages.BuildTrigger_NoProjectSpecified());
             }
 
-            return FormValidation.ok();
+            return warning != null ? warning : FormValidation.ok();
         }
 
     }
@@ -1,14 +1,21 @@
 package org.jenkinsci.plugins.buildresulttrigger.model;
 
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
 import hudson.model.Result;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 
 import java.io.Serializable;
 
+import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import net.sf.json.JSONObject;
 
 /**
  * @author Gregory Boissinot
@@ -20,10 +27,58 @@ public class CheckedResult extends AbstractDescribableImpl<CheckedResult> implem
 	 */
 	private static final long serialVersionUID = -1745559604929300826L;
 
+    /**
+     * Number of consecutive builds checked by the CONSECUTIVE condition when none is set.
+     */
+    public static final int DEFAULT_COUNT = 2;
+
 	private transient Result result;
 
     private final String checked;
 
+    /*
+    * How the build result is compared with the checked one, null for EQUAL
+    */
+    private Condition condition;
+
+    /*
+    * CHANGED_FROM: result of the previous completed build, null for the other conditions
+    */
+    private String fromResult;
+
+    /*
+    * CONSECUTIVE: number of consecutive completed builds with a matching result, null for the other conditions
+    */
+    private Integer count;
+
+    /*
+    * Optional build parameter filter
+    */
+    private String parameterName;
+
+    private String parameterValue;
+
+    /**
+     * How the result of a build is compared with the checked result.
+     */
+    public enum Condition {
+        EQUAL("Is"),
+        WORSE_OR_EQUAL("Is worse than or equal to"),
+        BETTER_OR_EQUAL("Is better than or equal to"),
+        CHANGED_FROM("Changed to it from the result below"),
+        CONSECUTIVE("Is, for a number of consecutive builds");
+
+        private final String displayName;
+
+        Condition(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
     @DataBoundConstructor
     public CheckedResult(String result) {
         this.result = Result.fromString(result);
@@ -35,7 +90,65 @@ public class CheckedResult extends AbstractDescribableImpl<CheckedResult> implem
         return result;
     }
 
+    public Condition getCondition() {
+        return condition == null ? Condition.EQUAL : condition;
+    }
+
+    @DataBoundSetter
+    public void setCondition(Condition condition) {
+        this.condition = condition == Condition.EQUAL ? null : condition;
+        if (condition != Condition.CHANGED_FROM) {
+            fromResult = null;
+        }
+        if (condition != Condition.CONSECUTIVE) {
+            count = null;
+        }
+    }
+
+    public String getFromResult() {
+        return fromResult;
+    }
+
+    @DataBoundSetter
+    public void setFromResult(String fromResult) {
+        this.fromResult = Util.fixEmptyAndTrim(fromResult);
+    }
+
+    /**
+     * @return the number of consecutive builds checked by the CONSECUTIVE condition, 1 for the other conditions
+     */
+    public int getCount() {
+        if (getCondition() != Condition.CONSECUTIVE) {
+            return 1;
+        }
+        return count == null ? DEFAULT_COUNT : Math.max(1, count);
+    }
+
+    @DataBoundSetter
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    @DataBoundSetter
+    public void setParameterName(String parameterName) {
+        this.parameterName = Util.fixEmptyAndTrim(parameterName);
+    }
+
+    public String getParameterValue() {
+        return parameterValue;
+    }
+
+    @DataBoundSetter
+    public void setParameterValue(String parameterValue) {
+        this.parameterValue = Util.fixNull(parameterValue);
+    }
+
     @Extension
+    @Symbol("checkedResult")
     public static class DescriptorImpl extends Descriptor<CheckedResult> {
 
         public String getDisplayName() {
@@ -51,6 +164,59 @@ public class CheckedResult extends AbstractDescribableImpl<CheckedResult> implem
             model.add(Result.ABORTED.toString());
             return model;
         }
+
+        public ListBoxModel doFillFromResultItems() {
+            ListBoxModel model = doFillResultItems();
+            model.add(0, new ListBoxModel.Option("", ""));
+            return model;
+        }
+
+        /**
+         * Drops the settings of the conditions other than the selected one, the form submits all of them.
+         */
+        @Override
+        public CheckedResult newInstance(StaplerRequest2 req, JSONObject formData) throws FormException {
+            Object condition = formData.opt("condition");
+            if (!Condition.CHANGED_FROM.name().equals(condition)) {
+                formData.remove("fromResult");
+            }
+            if (!Condition.CONSECUTIVE.name().equals(condition)) {
+                formData.remove("count");
+            }
+            return super.newInstance(req, formData);
+        }
+
+        public FormValidation doCheckFromResult(@QueryParameter String value, @QueryParameter String condition) {
+            if (Condition.CHANGED_FROM.name().equals(condition) && Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.error("The previous build result is required by this condition.");
+            }
+            return FormValidation.ok();
+        }
+
+        public ListBoxModel doFillConditionItems() {
+            ListBoxModel model = new ListBoxModel();
+            for (Condition condition : Condition.values()) {
+                model.add(condition.getDisplayName(), condition.name());
+            }
+            return model;
+        }
+
+        public FormValidation doCheckCount(@QueryParameter String value, @QueryParameter String condition) {
+            if (!Condition.CONSECUTIVE.name().equals(condition)) {
+                return FormValidation.ok();
+            }
+            if (Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.warning("The last " + DEFAULT_COUNT + " builds are checked when no number is set.");
+            }
+            try {
+                if (Integer.parseInt(value.trim()) < 1) {
+                    return FormValidation.error("The number of consecutive builds must be at least 1.");
+                }
+            } catch (NumberFormatException e) {
+                return FormValidation.error("The number of consecutive builds must be a number.");
+            }
+            return FormValidation.ok();
+        }
     }
 
     @SuppressWarnings("unused")
@@ -58,6 +224,13 @@ public class CheckedResult extends AbstractDescribableImpl<CheckedResult> implem
         if (checked != null) {
             this.result = Result.fromString(checked);
         }
+        // Recorded by previous versions for every condition
+        if (getCondition() != Condition.CHANGED_FROM) {
+            fromResult = null;
+        }
+        if (getCondition() != Condition.CONSECUTIVE || (count != null && count == 0)) {
+            count = null;
+        }
         return this;
     }
 }
@@ -0,0 +1,83 @@
+package org.jenkinsci.plugins.buildresulttrigger.model;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.Serializable;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiled job name pattern, matched against job full names.
+ * <ul>
+ * <li>{@code regex:<expression>} matches the full names with a regular expression;</li>
+ * <li>a name containing {@code *} or {@code ?} is a glob: {@code *} and {@code ?} match within a path segment,
+ * {@code **} across segments, so {@code folder/**} selects all the jobs in a folder.</li>
+ * </ul>
+ */
+public final class JobSelector implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String REGEX_PREFIX = "regex:";
+
+    private final String expression;
+
+    private final Pattern pattern;
+
+    private JobSelector(String expression, Pattern pattern) {
+        this.expression = expression;
+        this.pattern = pattern;
+    }
+
+    /**
+     * @return true if the given job name from the configuration is a pattern rather than a job name
+     */
+    public static boolean isPattern(String jobName) {
+        return jobName.startsWith(REGEX_PREFIX) || jobName.indexOf('*') >= 0 || jobName.indexOf('?') >= 0;
+    }
+
+    /**
+     * @throws PatternSyntaxException if the regular expression is invalid
+     */
+    public static JobSelector compile(String jobName) {
+        if (jobName.startsWith(REGEX_PREFIX)) {
+            return new JobSelector(jobName, Pattern.compile(jobName.substring(REGEX_PREFIX.length())));
+        }
+        return new JobSelector(jobName, Pattern.compile(globToRegex(StringUtils.removeStart(jobName, "/"))));
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i += 2;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (c == '?') {
+                regex.append("[^/]");
+                i++;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+                i++;
+            }
+        }
+        return regex.toString();
+    }
+
+    public boolean matches(String fullName) {
+        return pattern.matcher(fullName).matches();
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
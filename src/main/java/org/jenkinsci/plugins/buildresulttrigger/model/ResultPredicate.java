@@ -0,0 +1,158 @@
+package org.jenkinsci.plugins.buildresulttrigger.model;
+
+import hudson.Util;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Result;
+import hudson.model.Run;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link CheckedResult} compiled once into result ordinals, evaluated against the build number and result
+ * captured by the polls. The build record is only loaded when a condition needs more than the result:
+ * a transition whose previous result is not known, consecutive builds or a parameter filter.
+ */
+public final class ResultPredicate {
+
+    private static final Logger LOGGER = Logger.getLogger(ResultPredicate.class.getName());
+
+    /**
+     * Result ordinal passed when it is not known.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final CheckedResult.Condition condition;
+
+    private final int resultOrdinal;
+
+    private final int fromOrdinal;
+
+    private final int count;
+
+    private final String parameterName;
+
+    private final String parameterValue;
+
+    private final String description;
+
+    private ResultPredicate(CheckedResult checkedResult) {
+        Result result = checkedResult.getResult();
+        Result from = checkedResult.getFromResult() == null ? null : Result.fromString(checkedResult.getFromResult());
+        this.condition = checkedResult.getCondition();
+        this.resultOrdinal = result == null ? UNKNOWN : result.ordinal;
+        this.fromOrdinal = from == null ? UNKNOWN : from.ordinal;
+        this.count = checkedResult.getCount();
+        this.parameterName = checkedResult.getParameterName();
+        this.parameterValue = Util.fixNull(checkedResult.getParameterValue());
+        this.description = describe(result, from);
+        if (condition == CheckedResult.Condition.CHANGED_FROM && from == null) {
+            LOGGER.log(Level.WARNING, "The expected result {0} has no previous build result, no build matches it", description);
+        }
+    }
+
+    public static ResultPredicate compile(CheckedResult checkedResult) {
+        return new ResultPredicate(checkedResult);
+    }
+
+    /**
+     * @param resultOrdinal         the result ordinal of the build
+     * @param previousResultOrdinal the result ordinal of the previous completed build, {@link #UNKNOWN} if not known
+     * @param build                 loads the build record, only called if the condition needs it
+     * @return true if the build matches
+     */
+    public boolean matches(int resultOrdinal, int previousResultOrdinal, Supplier<Run<?, ?>> build) {
+        if (resultOrdinal == UNKNOWN || !matchesResult(resultOrdinal)) {
+            return false;
+        }
+        switch (condition) {
+            case CHANGED_FROM:
+                if (previousResultOrdinal == UNKNOWN) {
+                    Run<?, ?> run = build.get();
+                    Run<?, ?> previous = run == null ? null : run.getPreviousCompletedBuild();
+                    if (previous == null || previous.getResult() == null) {
+                        return false;
+                    }
+                    previousResultOrdinal = previous.getResult().ordinal;
+                }
+                if (previousResultOrdinal != fromOrdinal) {
+                    return false;
+                }
+                break;
+            case CONSECUTIVE:
+                if (count > 1 && !matchesPreviousBuilds(build.get())) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        return parameterName == null || matchesParameter(build.get());
+    }
+
+    private boolean matchesResult(int ordinal) {
+        switch (condition) {
+            case WORSE_OR_EQUAL:
+                return ordinal >= resultOrdinal;
+            case BETTER_OR_EQUAL:
+                return ordinal <= resultOrdinal;
+            default:
+                return ordinal == resultOrdinal;
+        }
+    }
+
+    private boolean matchesPreviousBuilds(Run<?, ?> run) {
+        if (run == null) {
+            return false;
+        }
+        Run<?, ?> previous = run;
+        for (int i = 1; i < count; i++) {
+            previous = previous.getPreviousCompletedBuild();
+            if (previous == null || previous.getResult() == null || previous.getResult().ordinal != resultOrdinal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesParameter(Run<?, ?> run) {
+        if (run == null) {
+            return false;
+        }
+        ParametersAction parameters = run.getAction(ParametersAction.class);
+        ParameterValue value = parameters == null ? null : parameters.getParameter(parameterName);
+        return value != null && parameterValue.equals(String.valueOf(value.getValue()));
+    }
+
+    private String describe(Result result, Result from) {
+        StringBuilder b = new StringBuilder();
+        switch (condition) {
+            case WORSE_OR_EQUAL:
+                b.append("worse than or equal to ").append(result);
+                break;
+            case BETTER_OR_EQUAL:
+                b.append("better than or equal to ").append(result);
+                break;
+            case CHANGED_FROM:
+                b.append(result).append(" after ").append(from);
+                break;
+            case CONSECUTIVE:
+                b.append(count).append(" consecutive ").append(result);
+                break;
+            default:
+                b.append(result);
+                break;
+        }
+        if (parameterName != null) {
+            b.append(" with ").append(parameterName).append('=').append(parameterValue);
+        }
+        return b.toString();
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,69 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.Result;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the audit trail: appending the checks of a poll of 1 to 10,000 changed jobs,
+ * compactions included, and reading the newest page.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuditBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class AuditState {
+
+        @Param({"1", "100", "10000"})
+        public int checks;
+
+        File file;
+
+        BuildResultTriggerAudit audit;
+
+        BuildResultTriggerAudit.Poll poll;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = File.createTempFile("buildResultTrigger-audit", ".bin");
+            audit = new BuildResultTriggerAudit(file);
+            poll = new BuildResultTriggerAudit.Poll();
+            for (int i = 0; i < checks; i++) {
+                poll.check("upstream-" + i, 1, Result.SUCCESS, i == 0 ? "SUCCESS" : null);
+            }
+            audit.append(poll, BuildResultTriggerAudit.Decision.TRIGGERED, 0);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    @Benchmark
+    public void append(AuditState state) throws IOException {
+        state.audit.append(state.poll, BuildResultTriggerAudit.Decision.TRIGGERED, 0);
+    }
+
+    @Benchmark
+    public BuildResultTriggerAudit.Page readPage(AuditState state) throws IOException {
+        return state.audit.read(-1, 50, null);
+    }
+}
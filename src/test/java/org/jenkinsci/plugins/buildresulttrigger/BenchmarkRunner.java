@@ -0,0 +1,33 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link jenkins.benchmark.jmh.JmhBenchmark} classes, with {@code mvn test -Dbenchmark}.
+ * The results, including the allocations per operation, are written to {@code target/jmh-report.json}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = ".*")
+class BenchmarkRunner {
+
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json");
+        new BenchmarkFinder(getClass()).findBenchmarks(options);
+        new Runner(options.build()).run();
+    }
+}
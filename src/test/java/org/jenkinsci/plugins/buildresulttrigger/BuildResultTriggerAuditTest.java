@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BuildResultTriggerAuditTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void tornTailIsDropped() throws Exception {
+        File file = new File(directory, "audit.bin");
+        BuildResultTriggerAudit audit = new BuildResultTriggerAudit(file);
+        audit.append(poll("a", 1), BuildResultTriggerAudit.Decision.NOT_TRIGGERED, 0);
+        audit.append(poll("b", 1), BuildResultTriggerAudit.Decision.TRIGGERED, 0);
+        long complete = file.length();
+
+        // A crash in the middle of an append: the leading length and part of the record only
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.writeInt(40);
+            raf.write(new byte[12]);
+        }
+
+        List<BuildResultTriggerAudit.Record> records = audit.read(-1, 10, null).getRecords();
+        assertEquals(2, records.size());
+        assertEquals("b", records.get(0).getUpstreamJob());
+        assertEquals(complete, file.length());
+
+        audit.append(poll("c", 2), BuildResultTriggerAudit.Decision.TRIGGERED, 0);
+        records = audit.read(-1, 10, null).getRecords();
+        assertEquals(3, records.size());
+        assertEquals("c", records.get(0).getUpstreamJob());
+    }
+
+    private static BuildResultTriggerAudit.Poll poll(String upstreamJob, int buildNumber) {
+        BuildResultTriggerAudit.Poll poll = new BuildResultTriggerAudit.Poll();
+        poll.check(upstreamJob, buildNumber, Result.SUCCESS, "SUCCESS");
+        return poll;
+    }
+}
@@ -0,0 +1,195 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Load test of the polling model on a synthetic topology: levels of jobs, each job of a level monitoring
+ * random jobs of the previous level, the first level being built by the test. Every other job is polled on
+ * its schedule, ticked by the test as the cron thread would, and the others on the completions of the monitored builds.
+ * Every job is expected to build within the p95 latency bound, and the end-to-end trigger latency, the CPU time
+ * and the heap allocated by the polls are logged.
+ * <p>
+ * Only runs with {@code mvn test -Dbenchmark}. A large controller is simulated with system properties,
+ * for instance {@code -Dbuildresulttrigger.loadTest.levels=2 -Dbuildresulttrigger.loadTest.width=5000
+ * -Dbuildresulttrigger.loadTest.edges=10} for 10,000 jobs and 50,000 trigger edges.
+ */
+@WithJenkins
+@EnabledIfSystemProperty(named = "benchmark", matches = ".*")
+class BuildResultTriggerLoadTest {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerLoadTest.class.getName());
+
+    private static final int LEVELS = Integer.getInteger("buildresulttrigger.loadTest.levels", 3);
+
+    private static final int WIDTH = Integer.getInteger("buildresulttrigger.loadTest.width", 15);
+
+    private static final int EDGES = Integer.getInteger("buildresulttrigger.loadTest.edges", 3);
+
+    private static final long SEED = Long.getLong("buildresulttrigger.loadTest.seed", 42L);
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("buildresulttrigger.loadTest.timeoutMinutes", 10L));
+
+    /*
+    * Period of the simulated cron ticks, standing for the minute of the real cron thread
+    */
+    private static final long CRON_TICK_MILLIS = Long.getLong("buildresulttrigger.loadTest.cronTickMillis", 1000L);
+
+    private static final long MAX_P95_LATENCY_MILLIS = Long.getLong("buildresulttrigger.loadTest.maxP95LatencyMillis", 30000L);
+
+    @Test
+    void triggerChains(JenkinsRule j) throws Exception {
+        j.jenkins.setQuietPeriod(0);
+        j.jenkins.setNumExecutors(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        Random random = new Random(SEED);
+
+        List<List<FreeStyleProject>> levels = new ArrayList<List<FreeStyleProject>>();
+        Map<String, List<String>> monitored = new HashMap<String, List<String>>();
+        List<BuildResultTrigger> triggers = new ArrayList<BuildResultTrigger>();
+        List<BuildResultTrigger> cronTriggers = new ArrayList<BuildResultTrigger>();
+        for (int level = 0; level < LEVELS; level++) {
+            List<FreeStyleProject> jobs = new ArrayList<FreeStyleProject>();
+            for (int i = 0; i < WIDTH; i++) {
+                FreeStyleProject job = j.createFreeStyleProject("job-" + level + "-" + i);
+                if (level > 0) {
+                    List<String> names = pick(levels.get(level - 1), random);
+                    BuildResultTrigger trigger = BuildResultTriggerTest.newTrigger(String.join(",", names), "SUCCESS");
+                    boolean cron = i % 2 == 1;
+                    trigger.setEvaluateOnCompletion(!cron);
+                    job.addTrigger(trigger);
+                    trigger.start(job, true);
+                    monitored.put(job.getName(), names);
+                    triggers.add(trigger);
+                    if (cron) {
+                        cronTriggers.add(trigger);
+                    }
+                }
+                jobs.add(job);
+            }
+            levels.add(jobs);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        // Runs the scheduled triggers as Trigger.checkTriggers does on every cron tick
+        ScheduledExecutorService cronThread = Executors.newSingleThreadScheduledExecutor();
+        cronThread.scheduleWithFixedDelay(() -> {
+            for (BuildResultTrigger trigger : cronTriggers) {
+                trigger.run();
+            }
+        }, CRON_TICK_MILLIS, CRON_TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        // Time from the first completion among the monitored builds to the first triggered build, an upper bound of the latency
+        Map<String, Long> completions = new HashMap<String, Long>();
+        List<Long> latencies = new ArrayList<Long>();
+        try {
+            // Drives the completions of the first level, the other levels being triggered
+            List<Future<FreeStyleBuild>> builds = new ArrayList<Future<FreeStyleBuild>>();
+            for (FreeStyleProject job : levels.get(0)) {
+                builds.add(job.scheduleBuild2(0));
+            }
+            for (Future<FreeStyleBuild> build : builds) {
+                build.get();
+            }
+
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            for (List<FreeStyleProject> jobs : levels) {
+                for (FreeStyleProject job : jobs) {
+                    FreeStyleBuild first = waitForFirstBuild(j, job, deadline);
+                    completions.put(job.getName(), first.getStartTimeInMillis() + first.getDuration());
+                    List<String> names = monitored.get(job.getName());
+                    if (names != null) {
+                        long earliest = Long.MAX_VALUE;
+                        for (String name : names) {
+                            earliest = Math.min(earliest, completions.get(name));
+                        }
+                        latencies.add(Math.max(0, first.getTimeInMillis() - earliest));
+                    }
+                }
+            }
+        } finally {
+            cronThread.shutdownNow();
+        }
+        j.waitUntilNoActivity();
+
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        long polls = 0;
+        long cronPolls = 0;
+        double cpuMillis = 0;
+        long allocatedBytes = 0;
+        for (BuildResultTrigger trigger : triggers) {
+            BuildResultTriggerStatistics statistics = trigger.getStatistics();
+            polls += statistics.getPolls();
+            if (cronTriggers.contains(trigger)) {
+                cronPolls += statistics.getPolls();
+            }
+            cpuMillis += statistics.getMeanPollCpuMillis() * statistics.getPolls();
+            allocatedBytes += statistics.getMeanPollAllocatedBytes() * statistics.getPolls();
+        }
+        Collections.sort(latencies);
+        LOGGER.info(String.format("Load test: %d jobs, %d trigger edges, %d of the triggers polled on their schedule%n"
+                        + "  trigger latency: median %d ms, p95 %d ms, max %d ms%n"
+                        + "  polls: %d (%d scheduled), CPU time %.1f ms (%.3f ms per poll), allocated %d KiB (%d bytes per poll)%n"
+                        + "  heap used: %d MiB before the builds, %d MiB after",
+                LEVELS * WIDTH, triggers.size() * EDGES, cronTriggers.size(),
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 100),
+                polls, cronPolls, cpuMillis, polls == 0 ? 0 : cpuMillis / polls, allocatedBytes / 1024, polls == 0 ? 0 : allocatedBytes / polls,
+                heapBefore >> 20, heapAfter >> 20));
+
+        assertTrue(cronTriggers.isEmpty() || cronPolls > 0, "the scheduled triggers were polled");
+        assertTrue(percentile(latencies, 95) <= MAX_P95_LATENCY_MILLIS,
+                "p95 trigger latency of " + percentile(latencies, 95) + " ms is above " + MAX_P95_LATENCY_MILLIS + " ms");
+    }
+
+    private static List<String> pick(List<FreeStyleProject> jobs, Random random) {
+        List<FreeStyleProject> candidates = new ArrayList<FreeStyleProject>(jobs);
+        Collections.shuffle(candidates, random);
+        List<String> names = new ArrayList<String>();
+        for (FreeStyleProject job : candidates.subList(0, Math.min(EDGES, candidates.size()))) {
+            names.add(job.getName());
+        }
+        return names;
+    }
+
+    private static FreeStyleBuild waitForFirstBuild(JenkinsRule j, FreeStyleProject job, long deadline) throws Exception {
+        FreeStyleBuild build;
+        while ((build = job.getBuildByNumber(1)) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(job.getName() + " was not triggered");
+            }
+            Thread.sleep(10);
+        }
+        return j.waitForCompletion(build);
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
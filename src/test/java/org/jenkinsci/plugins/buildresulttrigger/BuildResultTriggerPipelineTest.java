@@ -0,0 +1,94 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import org.jenkinsci.plugins.structs.SymbolLookup;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@WithJenkins
+class BuildResultTriggerPipelineTest {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildResultTriggerPipelineTest.class.getName());
+
+    private static final int RUNS = 5;
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /*
+    * Evaluated on completion, the downstream build is expected well before any scheduled poll
+    */
+    private static final long MAX_MEDIAN_LATENCY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    @Test
+    void symbol(JenkinsRule j) {
+        assertEquals(Collections.singleton("buildResult"), SymbolLookup.getSymbolValue(BuildResultTrigger.class));
+    }
+
+    @Test
+    void pipelineUpstreamTriggersPipelineDownstream(JenkinsRule j) throws Exception {
+        j.jenkins.setQuietPeriod(0);
+        WorkflowJob upstream = j.createProject(WorkflowJob.class, "upstream");
+        upstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'SUCCESS'", true));
+        WorkflowJob downstream = j.createProject(WorkflowJob.class, "downstream");
+        downstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'SUCCESS'", true));
+        BuildResultTrigger trigger = BuildResultTriggerTest.newTrigger("upstream", "SUCCESS");
+        trigger.setEvaluateOnCompletion(true);
+        // WorkflowJob.addTrigger starts the trigger itself
+        downstream.addTrigger(trigger);
+
+        long[] latencies = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            WorkflowRun upstreamRun = j.buildAndAssertSuccess(upstream);
+            long completion = upstreamRun.getStartTimeInMillis() + upstreamRun.getDuration();
+            WorkflowRun downstreamRun = waitForBuild(downstream, i + 1);
+            latencies[i] = downstreamRun.getTimeInMillis() - completion;
+            j.waitForCompletion(downstreamRun);
+            BuildResultTriggerCause cause = downstreamRun.getCause(BuildResultTriggerCause.class);
+            assertNotNull(cause);
+            assertEquals(Collections.singletonList("upstream #" + (i + 1) + " (SUCCESS)"), cause.getUpstreamBuilds());
+        }
+        Arrays.sort(latencies);
+        LOGGER.info(String.format("Pipeline trigger latency over %d runs: median %d ms, max %d ms",
+                RUNS, latencies[RUNS / 2], latencies[RUNS - 1]));
+        assertTrue(latencies[RUNS / 2] < MAX_MEDIAN_LATENCY_MILLIS,
+                "median trigger latency of " + latencies[RUNS / 2] + " ms is above " + MAX_MEDIAN_LATENCY_MILLIS + " ms");
+    }
+
+    @Test
+    void renamedPipelineUpstreamIsFollowed(JenkinsRule j) throws Exception {
+        WorkflowJob upstream = j.createProject(WorkflowJob.class, "upstream");
+        WorkflowJob downstream = j.createProject(WorkflowJob.class, "downstream");
+        BuildResultTrigger trigger = BuildResultTriggerTest.newTrigger("upstream", "SUCCESS");
+        // WorkflowJob.addTrigger starts the trigger itself
+        downstream.addTrigger(trigger);
+
+        upstream.renameTo("renamed");
+        assertEquals("renamed", trigger.getJobsInfo()[0].getJobNames());
+        assertEquals(Collections.singleton("renamed"), TriggerGraph.get().getUpstreams("downstream"));
+    }
+
+    private static WorkflowRun waitForBuild(WorkflowJob job, int number) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        WorkflowRun run;
+        while ((run = job.getBuildByNumber(number)) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(String.format("%s #%d was not triggered", job.getFullName(), number));
+            }
+            Thread.sleep(10);
+        }
+        return run;
+    }
+}
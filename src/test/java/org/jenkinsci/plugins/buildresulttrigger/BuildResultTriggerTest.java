@@ -0,0 +1,334 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.ExtensionList;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ItemGroup;
+import hudson.model.Result;
+import hudson.util.StreamTaskListener;
+import org.jenkinsci.plugins.buildresulttrigger.model.BuildResultTriggerInfo;
+import org.jenkinsci.plugins.buildresulttrigger.model.CheckedResult;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class BuildResultTriggerTest {
+
+    @Test
+    void pollDoesNotLoadBuildRecords(JenkinsRule j) throws Exception {
+        CountingProject upstream = j.jenkins.createProject(CountingProject.class, "upstream");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        BuildResultTrigger trigger = newTrigger("upstream", "SUCCESS");
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+        j.buildAndAssertSuccess(upstream);
+        XTriggerLog log = new XTriggerLog(StreamTaskListener.fromStdout());
+
+        // First poll: the new build matches
+        BuildResultTriggerContext oldContext = new BuildResultTriggerContext(new String[]{"upstream"},
+                new int[]{BuildResultTriggerContext.NO_BUILD}, new int[]{BuildResultTriggerContext.NO_RESULT});
+        // Resolving the last completed build may go through its permalink, at most once per job
+        CountingProject.LOOKUPS.set(0);
+        BuildResultTriggerContext newContext = trigger.getContext(log);
+        assertTrue(CountingProject.LOOKUPS.get() <= 1, "builds loaded by number to capture the context");
+        CountingProject.LOOKUPS.set(0);
+        trigger.checkIfModified(oldContext, newContext, log);
+        assertEquals(1, newContext.getBuildNumber(0));
+        assertEquals(Result.SUCCESS, newContext.getResult(0));
+        assertEquals(1, trigger.getStatistics().getMatches());
+        assertEquals(0, CountingProject.LOOKUPS.get(), "builds loaded by number to check the context");
+
+        // Second poll: nothing changed
+        CountingProject.LOOKUPS.set(0);
+        BuildResultTriggerContext nextContext = trigger.getContext(log);
+        assertTrue(CountingProject.LOOKUPS.get() <= 1, "builds loaded by number to capture the context");
+        CountingProject.LOOKUPS.set(0);
+        trigger.checkIfModified(newContext, nextContext, log);
+        assertEquals(1, trigger.getStatistics().getMatches());
+        assertEquals(0, CountingProject.LOOKUPS.get(), "builds loaded by number to check the context");
+    }
+
+    @Test
+    void triggeredBuildNamesTheMatchingBuild(JenkinsRule j) throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject("upstream");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        downstream.setQuietPeriod(0);
+        BuildResultTrigger trigger = newTrigger("upstream", "SUCCESS");
+        trigger.setEvaluateOnCompletion(true);
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+
+        // The poll run on completion lets the base class schedule the build
+        j.buildAndAssertSuccess(upstream);
+        FreeStyleBuild build = waitForBuild(j, downstream, 1);
+        BuildResultTriggerCause cause = build.getCause(BuildResultTriggerCause.class);
+        assertNotNull(cause);
+        assertEquals(Collections.singletonList("upstream #1 (SUCCESS)"), cause.getUpstreamBuilds());
+    }
+
+    @Test
+    void decisionIsRecordedOnceTheBuildIsScheduled(JenkinsRule j) throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject("upstream");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        downstream.setQuietPeriod(0);
+        BuildResultTrigger trigger = newTrigger("upstream", "SUCCESS");
+        trigger.setEvaluateOnCompletion(true);
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+
+        FreeStyleBuild upstreamBuild = j.buildAndAssertSuccess(upstream);
+        waitForBuild(j, downstream, 1);
+        String key = "upstream #1 @" + upstreamBuild.getStartTimeInMillis();
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (!RecordingStore.DECISIONS.contains("downstream=" + key)) {
+            assertTrue(System.currentTimeMillis() < deadline, "decision not recorded");
+            Thread.sleep(10);
+        }
+
+        // Taken as triggered by the other controllers from now on
+        assertTrue(ExtensionList.lookupSingleton(RecordingStore.class).isRecorded("downstream", Collections.singletonList(key)));
+    }
+
+    @Test
+    void combinedModeChecksJobsMissingFromTheContext(JenkinsRule j) throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        BuildResultTrigger trigger = new BuildResultTrigger("H H 1 1 *", true, new BuildResultTriggerInfo[]{
+                new BuildResultTriggerInfo("a,b", new CheckedResult[]{new CheckedResult("SUCCESS")})});
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+        j.buildAndAssertSuccess(a);
+        j.buildAndAssertSuccess(b);
+        XTriggerLog log = new XTriggerLog(StreamTaskListener.fromStdout());
+
+        // b has been added to the configuration, or renamed, since the context was recorded
+        BuildResultTriggerContext oldContext = new BuildResultTriggerContext(new String[]{"a"},
+                new int[]{BuildResultTriggerContext.NO_BUILD}, new int[]{BuildResultTriggerContext.NO_RESULT});
+        trigger.checkIfModified(oldContext, trigger.getContext(log), log);
+        assertEquals(1, trigger.getStatistics().getTriggersFired());
+    }
+
+    @Test
+    void partialMatchesReportTheBuildsThatMatched(JenkinsRule j) throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        downstream.setQuietPeriod(0);
+        BuildResultTrigger trigger = new BuildResultTrigger("H H 1 1 *", true, new BuildResultTriggerInfo[]{
+                new BuildResultTriggerInfo("a,b", new CheckedResult[]{new CheckedResult("SUCCESS")})});
+        trigger.setRememberPartialMatches(true);
+        trigger.setEvaluateOnCompletion(true);
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+
+        // a #1 matches, a #2 fails, then b #1 completes the combination
+        j.buildAndAssertSuccess(a);
+        waitForPolls(trigger, 1);
+        a.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, a);
+        waitForPolls(trigger, 2);
+        j.buildAndAssertSuccess(b);
+        FreeStyleBuild build = waitForBuild(j, downstream, 1);
+        BuildResultTriggerCause cause = build.getCause(BuildResultTriggerCause.class);
+        assertNotNull(cause);
+        assertEquals(Arrays.asList("a #1 (SUCCESS)", "b #1 (SUCCESS)"), cause.getUpstreamBuilds());
+    }
+
+    @Test
+    void patternDoesNotSelectTheJobOfTheTrigger(JenkinsRule j) throws Exception {
+        j.createFreeStyleProject("upstream");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        BuildResultTrigger trigger = newTrigger("**", "SUCCESS");
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+
+        assertTrue(BuildResultTriggerIndex.get().getWatchers("upstream").contains(trigger));
+        assertFalse(BuildResultTriggerIndex.get().getWatchers("downstream").contains(trigger));
+        BuildResultTriggerContext context = trigger.getContext(new XTriggerLog(StreamTaskListener.fromStdout()));
+        assertEquals(1, context.getJobCount());
+        assertEquals("/upstream", context.getJobName(0));
+    }
+
+    @Test
+    void auditRecordsTheNewBuildsLeftUnchecked(JenkinsRule j) throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        BuildResultTrigger trigger = newTrigger("a,b", "SUCCESS");
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+        XTriggerLog log = new XTriggerLog(StreamTaskListener.fromStdout());
+        BuildResultTriggerContext context = trigger.getContext(log);
+
+        // The first match short-circuits the poll, the other new build is not checked
+        j.buildAndAssertSuccess(a);
+        j.buildAndAssertSuccess(b);
+        poll(trigger, context, log);
+        j.waitUntilNoActivity();
+
+        List<BuildResultTriggerAudit.Record> records = trigger.getAudit().read(-1, 10, null).getRecords();
+        assertEquals(2, records.size());
+        List<BuildResultTriggerAudit.Decision> decisions = new ArrayList<BuildResultTriggerAudit.Decision>();
+        for (BuildResultTriggerAudit.Record record : records) {
+            decisions.add(record.getDecision());
+        }
+        assertTrue(decisions.contains(BuildResultTriggerAudit.Decision.TRIGGERED));
+        assertTrue(decisions.contains(BuildResultTriggerAudit.Decision.NOT_EVALUATED));
+    }
+
+    @Test
+    void buildLeftUncheckedIsAuditedOnce(JenkinsRule j) throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        j.createFreeStyleProject("b");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        BuildResultTrigger trigger = new BuildResultTrigger("H H 1 1 *", true, new BuildResultTriggerInfo[]{
+                new BuildResultTriggerInfo("a,b", new CheckedResult[]{new CheckedResult("SUCCESS")})});
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+        XTriggerLog log = new XTriggerLog(StreamTaskListener.fromStdout());
+        BuildResultTriggerContext context = trigger.getContext(log);
+
+        // b has not changed: the combination keeps the old context, and a #1 stays unchecked poll after poll
+        j.buildAndAssertSuccess(a);
+        poll(trigger, context, log);
+        poll(trigger, context, log);
+
+        List<BuildResultTriggerAudit.Record> records = trigger.getAudit().read(-1, 10, null).getRecords();
+        assertEquals(1, records.size());
+        assertEquals("a", records.get(0).getUpstreamJob());
+        assertEquals(BuildResultTriggerAudit.Decision.NOT_EVALUATED, records.get(0).getDecision());
+    }
+
+    @Test
+    void contextIsKeptUntilTheConfigurationChanges(JenkinsRule j) throws Exception {
+        j.createFreeStyleProject("a");
+        j.createFreeStyleProject("b");
+        FreeStyleProject downstream = j.createFreeStyleProject("downstream");
+        BuildResultTrigger trigger = newTrigger("a", "SUCCESS");
+        downstream.addTrigger(trigger);
+        trigger.start(downstream, true);
+        trigger.setNewContext(trigger.getContext(new XTriggerLog(StreamTaskListener.fromStdout())));
+        File file = new File(downstream.getRootDir(), "buildResultTrigger-context.xml");
+        assertTrue(file.exists());
+
+        // Saved unchanged
+        trigger.stop();
+        trigger = newTrigger("a", "SUCCESS");
+        trigger.start(downstream, true);
+        assertTrue(file.exists());
+
+        trigger.stop();
+        newTrigger("b", "SUCCESS").start(downstream, true);
+        assertFalse(file.exists());
+    }
+
+    private static void waitForPolls(BuildResultTrigger trigger, long polls) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (trigger.getStatistics().getPolls() < polls) {
+            assertTrue(System.currentTimeMillis() < deadline, "poll " + polls + " not run");
+            Thread.sleep(10);
+        }
+    }
+
+    private static FreeStyleBuild waitForBuild(JenkinsRule j, FreeStyleProject job, int number) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        FreeStyleBuild build;
+        while ((build = job.getBuildByNumber(number)) == null) {
+            assertTrue(System.currentTimeMillis() < deadline, job.getName() + " #" + number + " not triggered");
+            Thread.sleep(10);
+        }
+        return j.waitForCompletion(build);
+    }
+
+    private static BuildResultTriggerContext poll(BuildResultTrigger trigger, BuildResultTriggerContext oldContext,
+                                                  XTriggerLog log) throws Exception {
+        BuildResultTriggerContext newContext = trigger.getContext(log);
+        trigger.checkIfModified(oldContext, newContext, log);
+        return newContext;
+    }
+
+    static BuildResultTrigger newTrigger(String jobNames, String... results) throws Exception {
+        CheckedResult[] checkedResults = new CheckedResult[results.length];
+        for (int i = 0; i < results.length; i++) {
+            checkedResults[i] = new CheckedResult(results[i]);
+        }
+        return new BuildResultTrigger("H H 1 1 *", false,
+                new BuildResultTriggerInfo[]{new BuildResultTriggerInfo(jobNames, checkedResults)});
+    }
+
+    /**
+     * Freestyle project counting the builds looked up by number.
+     */
+    public static final class CountingProject extends FreeStyleProject {
+
+        static final AtomicInteger LOOKUPS = new AtomicInteger();
+
+        public CountingProject(ItemGroup parent, String name) {
+            super(parent, name);
+        }
+
+        @Override
+        public FreeStyleBuild getBuildByNumber(int n) {
+            LOOKUPS.incrementAndGet();
+            return super.getBuildByNumber(n);
+        }
+    }
+
+    @TestExtension("pollDoesNotLoadBuildRecords")
+    public static final class CountingProjectDescriptor extends FreeStyleProject.DescriptorImpl {
+
+        public CountingProjectDescriptor() {
+            super(CountingProject.class);
+        }
+
+        @Override
+        public CountingProject newInstance(ItemGroup parent, String name) {
+            return new CountingProject(parent, name);
+        }
+    }
+
+    @TestExtension("decisionIsRecordedOnceTheBuildIsScheduled")
+    public static final class RecordingStore extends TriggerDecisionStore {
+
+        static final Set<String> DECISIONS = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean isRecorded(String jobFullName, Collection<String> upstreamBuilds) {
+            return DECISIONS.containsAll(toDecisions(jobFullName, upstreamBuilds));
+        }
+
+        @Override
+        public boolean record(String jobFullName, Collection<String> upstreamBuilds) {
+            return DECISIONS.addAll(toDecisions(jobFullName, upstreamBuilds));
+        }
+
+        private static List<String> toDecisions(String jobFullName, Collection<String> upstreamBuilds) {
+            List<String> decisions = new ArrayList<String>();
+            for (String upstreamBuild : upstreamBuilds) {
+                decisions.add(jobFullName + "=" + upstreamBuild);
+            }
+            return decisions;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileTriggerDecisionStoreTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void decisionIsRecordedOnceAcrossJvms() throws Exception {
+        String key = "folder/upstream #1 @1000";
+        Process other = startRecorder(key);
+        boolean recordedHere = new FileTriggerDecisionStore(directory).record("downstream", Collections.singletonList(key));
+        boolean recordedThere = waitForRecorder(other);
+        assertNotEquals(recordedHere, recordedThere, "exactly one of the controllers records the decision");
+
+        // The first build of a recreated job is another build
+        String recreated = "folder/upstream #1 @2000";
+        assertTrue(new FileTriggerDecisionStore(directory).record("downstream", Collections.singletonList(recreated)));
+        assertFalse(waitForRecorder(startRecorder(recreated)));
+    }
+
+    @Test
+    void keyDoesNotDependOnTheOrderOfTheBuilds() throws Exception {
+        FileTriggerDecisionStore store = new FileTriggerDecisionStore(directory);
+        assertFalse(store.isRecorded("downstream", Arrays.asList("a #1 @1000", "b #2 @2000")));
+        assertTrue(store.record("downstream", Arrays.asList("a #1 @1000", "b #2 @2000")));
+        assertTrue(store.isRecorded("downstream", Arrays.asList("b #2 @2000", "a #1 @1000")));
+        assertFalse(store.record("downstream", Arrays.asList("b #2 @2000", "a #1 @1000")));
+        assertTrue(store.record("other", Arrays.asList("a #1 @1000", "b #2 @2000")));
+    }
+
+    private Process startRecorder(String key) throws Exception {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Recorder.class.getName(),
+                directory.getPath(), "downstream", key)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static boolean waitForRecorder(Process process) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        assertEquals(0, process.waitFor());
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).trim().split("\n");
+        return Boolean.parseBoolean(lines[lines.length - 1].trim());
+    }
+
+    /**
+     * Records a decision from another JVM sharing the decision directory, and prints whether it was recorded.
+     */
+    public static final class Recorder {
+
+        public static void main(String[] args) throws Exception {
+            System.out.println(new FileTriggerDecisionStore(new File(args[0])).record(args[1], Collections.singletonList(args[2])));
+        }
+    }
+}
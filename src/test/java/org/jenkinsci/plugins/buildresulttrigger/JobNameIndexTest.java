@@ -0,0 +1,33 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobNameIndexTest {
+
+    @Test
+    void lookupsReturnAtMostLimitNames() {
+        JobNameIndex index = new JobNameIndex();
+        for (int i = 0; i < 100; i++) {
+            index.add(String.format("folder/build-%03d", i));
+        }
+        assertEquals(Arrays.asList("folder/build-000", "folder/build-001", "folder/build-002"),
+                index.findContaining("BUILD", 3));
+        assertEquals(5, index.findSimilar("folder/build-042", 5).size());
+        assertEquals("folder/build-042", index.findSimilar("folder/build-042", 5).get(0));
+    }
+
+    @Test
+    void removedNamesLeaveNoTrigramBehind() {
+        JobNameIndex index = new JobNameIndex();
+        index.add("folder/upstream");
+        index.add("folder/downstream");
+        index.remove("folder");
+        assertTrue(index.getNames().isEmpty());
+        assertEquals(0, index.getTrigramCount());
+    }
+}
@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.buildresulttrigger;
+
+import hudson.model.FreeStyleProject;
+import hudson.util.StreamTaskListener;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.buildresulttrigger.model.BuildResultTriggerInfo;
+import org.jenkinsci.plugins.buildresulttrigger.model.CheckedResult;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a full poll, context fetch and check, for a trigger monitoring 1 to 10,000 jobs.
+ * Every monitored job has one completed build, compared against a context without any build,
+ * so each poll has every job to evaluate.
+ * The audit trail is disabled, its writes are measured by {@link AuditBenchmark}.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.Throughput)
+@Fork(jvmArgsAppend = "-Dorg.jenkinsci.plugins.buildresulttrigger.BuildResultTriggerAudit.enabled=false")
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PollBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PollState extends JmhBenchmarkState {
+
+        @Param({"1", "100", "10000"})
+        public int jobs;
+
+        @Param({"false", "true"})
+        public boolean combined;
+
+        BuildResultTrigger trigger;
+
+        BuildResultTriggerContext baseline;
+
+        XTriggerLog log;
+
+        @Override
+        public void setup() throws Exception {
+            Jenkins jenkins = getJenkins();
+            jenkins.setNumExecutors(Runtime.getRuntime().availableProcessors() * 2);
+            List<String> names = new ArrayList<String>();
+            List<Future<?>> builds = new ArrayList<Future<?>>();
+            for (int i = 0; i < jobs; i++) {
+                FreeStyleProject upstream = jenkins.createProject(FreeStyleProject.class, "upstream-" + i);
+                names.add(upstream.getName());
+                builds.add(upstream.scheduleBuild2(0));
+            }
+            for (Future<?> build : builds) {
+                build.get();
+            }
+
+            FreeStyleProject downstream = jenkins.createProject(FreeStyleProject.class, "downstream");
+            // Polls decide to trigger it but no build is scheduled
+            downstream.disable();
+            trigger = new BuildResultTrigger("H H 1 1 *", combined, new BuildResultTriggerInfo[]{
+                    new BuildResultTriggerInfo(String.join(",", names), new CheckedResult[]{new CheckedResult("SUCCESS")})});
+            downstream.addTrigger(trigger);
+            trigger.start(downstream, true);
+
+            log = new XTriggerLog(new StreamTaskListener(OutputStream.nullOutputStream(), StandardCharsets.UTF_8));
+            BuildResultTriggerContext context = trigger.getContext(log);
+            int[] buildNumbers = new int[context.getJobCount()];
+            int[] resultOrdinals = new int[context.getJobCount()];
+            Arrays.fill(resultOrdinals, BuildResultTriggerContext.NO_RESULT);
+            String[] jobNames = new String[context.getJobCount()];
+            for (int i = 0; i < jobNames.length; i++) {
+                jobNames[i] = context.getJobName(i);
+            }
+            baseline = new BuildResultTriggerContext(jobNames, buildNumbers, resultOrdinals);
+        }
+    }
+
+    @Benchmark
+    public boolean poll(PollState state) throws Exception {
+        BuildResultTriggerContext context = state.trigger.getContext(state.log);
+        return state.trigger.checkIfModified(state.baseline, context, state.log);
+    }
+}
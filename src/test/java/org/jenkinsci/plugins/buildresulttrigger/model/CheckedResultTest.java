@@ -0,0 +1,35 @@
+package org.jenkinsci.plugins.buildresulttrigger.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CheckedResultTest {
+
+    @Test
+    void countOnlyAppliesToConsecutiveBuilds() {
+        CheckedResult equal = new CheckedResult("SUCCESS");
+        equal.setCount(3);
+        equal.setCondition(CheckedResult.Condition.EQUAL);
+        assertEquals(1, equal.getCount());
+
+        CheckedResult consecutive = new CheckedResult("FAILURE");
+        consecutive.setCondition(CheckedResult.Condition.CONSECUTIVE);
+        assertEquals(CheckedResult.DEFAULT_COUNT, consecutive.getCount());
+        consecutive.setCount(3);
+        assertEquals(3, consecutive.getCount());
+    }
+
+    @Test
+    void fromResultOnlyAppliesToTransitions() {
+        CheckedResult checkedResult = new CheckedResult("SUCCESS");
+        checkedResult.setFromResult("FAILURE");
+        checkedResult.setCondition(CheckedResult.Condition.WORSE_OR_EQUAL);
+        assertNull(checkedResult.getFromResult());
+
+        checkedResult.setFromResult("FAILURE");
+        checkedResult.setCondition(CheckedResult.Condition.CHANGED_FROM);
+        assertEquals("FAILURE", checkedResult.getFromResult());
+    }
+}